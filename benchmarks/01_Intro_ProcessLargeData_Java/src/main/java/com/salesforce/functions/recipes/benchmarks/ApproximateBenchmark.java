@@ -0,0 +1,112 @@
+package com.salesforce.functions.recipes.benchmarks;
+
+import com.salesforce.functions.recipes.data.SchoolsDataset;
+import com.salesforce.functions.recipes.search.ParallelScan;
+import com.salesforce.functions.recipes.search.Ranking;
+import com.salesforce.functions.recipes.search.SchoolFilter;
+import java.nio.file.attribute.FileTime;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the exact search of the spatial index against the approximate grid search for several
+ * distance ratios, over points of origin spread around the United States. The setup prints the
+ * recall of each ratio, the share of the exact nearest schools it returns, and how much further
+ * than the exact k-th nearest school the last one returned is at worst, bounded by
+ * {@code 1 / distanceRatio}, to read next to its latency.
+ *
+ * <pre>
+ * java -jar benchmarks/01_Intro_ProcessLargeData_Java/target/benchmarks.jar Approximate
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ApproximateBenchmark {
+  private static final int ORIGINS = 1_024;
+
+  @Param({"100000"})
+  public int size;
+
+  @Param({"10", "100"})
+  public int length;
+
+  @Param({"0.25", "0.5", "0.75", "1"})
+  public double distanceRatio;
+
+  private SchoolsDataset dataset;
+  private double[] latitudes;
+  private double[] longitudes;
+  private int next;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    dataset = new SchoolsDataset(SyntheticSchools.create(size, 42), FileTime.fromMillis(0), 0, 0);
+    Random random = new Random(7);
+    latitudes = new double[ORIGINS];
+    longitudes = new double[ORIGINS];
+    for (int i = 0; i < ORIGINS; i++) {
+      latitudes[i] = 25 + random.nextDouble() * 24;
+      longitudes[i] = -124 + random.nextDouble() * 57;
+    }
+    measure();
+  }
+
+  @Benchmark
+  public Ranking exact() {
+    int i = next++ & (ORIGINS - 1);
+    return dataset.nearest(latitudes[i], longitudes[i], length, SchoolFilter.NONE,
+        ParallelScan.DISABLED);
+  }
+
+  @Benchmark
+  public Ranking approximate() {
+    int i = next++ & (ORIGINS - 1);
+    return dataset.nearestApproximate(latitudes[i], longitudes[i], length, SchoolFilter.NONE,
+        distanceRatio, ParallelScan.DISABLED);
+  }
+
+  private void measure() {
+    long found = 0;
+    long total = 0;
+    double furthest = 1;
+    for (int i = 0; i < ORIGINS; i++) {
+      Ranking exact = dataset.nearest(latitudes[i], longitudes[i], length, SchoolFilter.NONE,
+          ParallelScan.DISABLED);
+      Ranking approximate = dataset.nearestApproximate(latitudes[i], longitudes[i], length,
+          SchoolFilter.NONE, distanceRatio, ParallelScan.DISABLED);
+      Set<Integer> positions = new HashSet<>();
+      for (int rank = 0; rank < approximate.size(); rank++) {
+        positions.add(approximate.position(rank));
+      }
+      for (int rank = 0; rank < exact.size(); rank++) {
+        found += positions.contains(exact.position(rank)) ? 1 : 0;
+      }
+      total += exact.size();
+      double exactLast = exact.key(exact.size() - 1);
+      if (exactLast > 0) {
+        furthest = Math.max(furthest, approximate.key(approximate.size() - 1) / exactLast);
+      }
+    }
+    System.out.printf("%ndistanceRatio %s returns %.4f of the %d nearest schools, the last one at "
+        + "most %.3f times as far as the exact one%n", distanceRatio, (double) found / total,
+        length, furthest);
+  }
+}
@@ -0,0 +1,52 @@
+package com.salesforce.functions.recipes.benchmarks;
+
+import com.salesforce.functions.jvm.sdk.InvocationEvent;
+import java.net.URI;
+import java.time.OffsetDateTime;
+import java.util.Optional;
+
+/**
+ * Minimal invocation event carrying a payload, standing in for the one built by the runtime.
+ */
+final class BenchmarkEvent<T> implements InvocationEvent<T> {
+  private final T data;
+
+  BenchmarkEvent(T data) {
+    this.data = data;
+  }
+
+  @Override
+  public String getId() {
+    return "benchmark";
+  }
+
+  @Override
+  public String getType() {
+    return "com.salesforce.function.invoke.sync";
+  }
+
+  @Override
+  public URI getSource() {
+    return URI.create("urn:event:from:benchmark");
+  }
+
+  @Override
+  public T getData() {
+    return data;
+  }
+
+  @Override
+  public Optional<String> getDataContentType() {
+    return Optional.of("application/json");
+  }
+
+  @Override
+  public Optional<URI> getDataSchema() {
+    return Optional.empty();
+  }
+
+  @Override
+  public Optional<OffsetDateTime> getTime() {
+    return Optional.empty();
+  }
+}
@@ -0,0 +1,86 @@
+package com.salesforce.functions.recipes.benchmarks;
+
+import com.google.gson.Gson;
+import com.salesforce.functions.recipes.JsonResponse;
+import com.salesforce.functions.recipes.School;
+import com.salesforce.functions.recipes.data.SchoolsJson;
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares reading and writing the schools document with Gson's reflective binding, with and
+ * without creating a Gson instance per call, against the shared instance and its hand-written
+ * adapters in {@link SchoolsJson}.
+ *
+ * <pre>
+ * java -jar benchmarks/01_Intro_ProcessLargeData_Java/target/benchmarks.jar Gson
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GsonBenchmark {
+  @Param({"100", "10000"})
+  public int size;
+
+  private byte[] json;
+  private JsonResponse response;
+  private Gson reflective;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    List<School> schools = SyntheticSchools.create(size, 42);
+    response = new JsonResponse();
+    response.setSchools(schools);
+    reflective = new Gson();
+    json = reflective.toJson(response).getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Benchmark
+  public JsonResponse readReflectiveNewGson() {
+    return new Gson().fromJson(reader(), JsonResponse.class);
+  }
+
+  @Benchmark
+  public JsonResponse readReflective() {
+    return reflective.fromJson(reader(), JsonResponse.class);
+  }
+
+  @Benchmark
+  public JsonResponse readAdapters() {
+    return SchoolsJson.GSON.fromJson(reader(), JsonResponse.class);
+  }
+
+  @Benchmark
+  public String writeReflective() {
+    return reflective.toJson(response);
+  }
+
+  @Benchmark
+  public String writeAdapters() {
+    return SchoolsJson.GSON.toJson(response);
+  }
+
+  private Reader reader() {
+    return new InputStreamReader(new ByteArrayInputStream(json), StandardCharsets.UTF_8);
+  }
+}
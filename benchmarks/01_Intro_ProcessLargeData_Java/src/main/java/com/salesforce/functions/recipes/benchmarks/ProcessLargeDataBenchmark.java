@@ -0,0 +1,176 @@
+package com.salesforce.functions.recipes.benchmarks;
+
+import com.google.gson.Gson;
+import com.salesforce.functions.recipes.FunctionInput;
+import com.salesforce.functions.recipes.FunctionOutput;
+import com.salesforce.functions.recipes.JsonResponse;
+import com.salesforce.functions.recipes.ProcessLargeDataFunction;
+import com.salesforce.functions.recipes.School;
+import com.salesforce.functions.recipes.SchoolField;
+import com.salesforce.functions.recipes.data.SchoolsDataset;
+import com.salesforce.functions.recipes.data.SchoolsRepository;
+import com.salesforce.functions.recipes.search.Distances;
+import com.salesforce.functions.recipes.search.LinearScan;
+import com.salesforce.functions.recipes.search.ParallelScan;
+import com.salesforce.functions.recipes.search.Ranking;
+import com.salesforce.functions.recipes.search.SchoolFilter;
+import com.salesforce.functions.recipes.search.TopK;
+import com.salesforce.functions.recipes.utils.Environment.DatasetMode;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures ProcessLargeDataFunction end to end and each of its stages on a synthetic dataset:
+ * parsing the JSON file, computing distances, selecting the nearest schools and serializing the
+ * response.
+ *
+ * <pre>
+ * ./mvnw -pl benchmarks/01_Intro_ProcessLargeData_Java -am package -DskipTests
+ * java -jar benchmarks/01_Intro_ProcessLargeData_Java/target/benchmarks.jar ProcessLargeData
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProcessLargeDataBenchmark {
+  private static final double LATITUDE = 36.169090;
+  private static final double LONGITUDE = -115.140579;
+
+  @Param({"1000", "10000", "100000"})
+  public int size;
+
+  @Param({"5", "50", "500"})
+  public int length;
+
+  private Path directory;
+  private byte[] json;
+  private List<School> schools;
+  private SchoolsDataset dataset;
+  private double[] distances;
+  private FunctionOutput output;
+  private FunctionOutput projectedOutput;
+  private ProcessLargeDataFunction function;
+  private BenchmarkEvent<FunctionInput> event;
+  private Gson gson;
+  private SchoolFilter filter;
+  private BitSet candidates;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    directory = Files.createTempDirectory("schools");
+    Path path = directory.resolve("schools.json");
+    SyntheticSchools.write(path, SyntheticSchools.create(size, 42));
+    json = Files.readAllBytes(path);
+
+    SchoolsRepository repository = new SchoolsRepository(path);
+    dataset = repository.get();
+    schools = dataset.getSchools();
+    distances = distanceScan();
+    function = new ProcessLargeDataFunction(repository, DatasetMode.MEMORY, ParallelScan.DISABLED);
+    event = new BenchmarkEvent<>(new FunctionInput(LATITUDE, LONGITUDE, length));
+    output = function.apply(event, null);
+    // The fields InvokeProcessLargeDataFunctionFlow reads
+    projectedOutput = new FunctionOutput(output.getSchools(),
+        EnumSet.of(SchoolField.NAME, SchoolField.DESCRIPTION, SchoolField.STREET,
+            SchoolField.CITY, SchoolField.STATE, SchoolField.ZIP));
+    gson = new Gson();
+    filter = new SchoolFilter(500.0, null, List.of("NV"), List.of("high"), null);
+    candidates = dataset.getAttributes().select(filter);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    try (var files = Files.walk(directory)) {
+      files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+    }
+  }
+
+  @Benchmark
+  public FunctionOutput endToEnd() throws Exception {
+    return function.apply(event, null);
+  }
+
+  @Benchmark
+  public JsonResponse jsonParse() {
+    return gson.fromJson(
+        new InputStreamReader(new ByteArrayInputStream(json), StandardCharsets.UTF_8),
+        JsonResponse.class);
+  }
+
+  @Benchmark
+  public double[] distanceScan() {
+    // The trigonometric formula applied to every school, as the function originally did
+    double[] result = new double[schools.size()];
+    for (int i = 0; i < result.length; i++) {
+      School school = schools.get(i);
+      result[i] = Distances.miles(LATITUDE, LONGITUDE, school.getLatitude(), school.getLongitude());
+    }
+    return result;
+  }
+
+  @Benchmark
+  public List<Integer> sortLimit() {
+    return IntStream.range(0, distances.length)
+        .boxed()
+        .sorted(Comparator.comparingDouble(i -> distances[i]))
+        .limit(length)
+        .collect(Collectors.toList());
+  }
+
+  @Benchmark
+  public Ranking topK() {
+    return TopK.select(distances, length);
+  }
+
+  @Benchmark
+  public Ranking linearScan() {
+    return LinearScan.nearest(dataset.getCoordinates(), LATITUDE, LONGITUDE, length);
+  }
+
+  @Benchmark
+  public Ranking kdTree() {
+    return dataset.getIndex().nearest(LATITUDE, LONGITUDE, length);
+  }
+
+  @Benchmark
+  public Ranking filteredKdTree() {
+    return dataset.getIndex().nearest(LATITUDE, LONGITUDE, length, filter, candidates);
+  }
+
+  @Benchmark
+  public String serialization() {
+    return gson.toJson(output);
+  }
+
+  @Benchmark
+  public String projectedSerialization() {
+    return gson.toJson(projectedOutput);
+  }
+}
@@ -0,0 +1,76 @@
+package com.salesforce.functions.recipes.benchmarks;
+
+import com.google.gson.Gson;
+import com.salesforce.functions.recipes.JsonResponse;
+import com.salesforce.functions.recipes.School;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates a schools dataset shaped like the Code.org database, so benchmarks run offline and
+ * every engine is measured on the same data.
+ */
+public final class SyntheticSchools {
+  private static final String[] STATES = {"NV", "CA", "AZ", "UT", "OR", "WA", "TX", "NY"};
+  private static final String[] LEVELS = {"elementary", "middle", "high", "college"};
+  private static final String[] LANGUAGES = {"Java", "JavaScript", "Python", "Scratch"};
+  private static final String[] FORMATS = {"in_school", "out_of_school", "online"};
+
+  private SyntheticSchools() {}
+
+  /**
+   * Create schools spread over the continental United States.
+   *
+   * @param count Number of schools
+   * @param seed Random seed, the same seed always produces the same schools
+   * @return List<School>
+   */
+  public static List<School> create(int count, long seed) {
+    Random random = new Random(seed);
+    List<School> schools = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      School school = new School();
+      school.setName("School " + i);
+      school.setWebsite("https://school" + i + ".example.com");
+      school.setDescription(
+          "Synthetic school number " + i + " offering computer science classes to its students.");
+      school.setLevels(new String[] {LEVELS[random.nextInt(LEVELS.length)]});
+      school.setLanguages(
+          new String[] {
+            LANGUAGES[random.nextInt(LANGUAGES.length)], LANGUAGES[random.nextInt(LANGUAGES.length)]
+          });
+      school.setFormat(FORMATS[random.nextInt(FORMATS.length)]);
+      school.setFormat_description("Classes are held " + school.getFormat());
+      school.setStreet(i + " Main Street");
+      school.setCity("City " + (i % 500));
+      school.setState(STATES[random.nextInt(STATES.length)]);
+      school.setZip(String.format("%05d", random.nextInt(100000)));
+      school.setCountry("United States");
+      school.setLatitude(25 + random.nextDouble() * 24);
+      school.setLongitude(-124 + random.nextDouble() * 57);
+      schools.add(school);
+    }
+    return schools;
+  }
+
+  /**
+   * Write schools in the same format as the Code.org database.
+   *
+   * @param path Destination file
+   * @param schools Schools to write
+   * @throws IOException if the file cannot be written
+   */
+  public static void write(Path path, List<School> schools) throws IOException {
+    JsonResponse response = new JsonResponse();
+    response.setSchools(schools);
+    try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+      new Gson().toJson(response, writer);
+    }
+  }
+}
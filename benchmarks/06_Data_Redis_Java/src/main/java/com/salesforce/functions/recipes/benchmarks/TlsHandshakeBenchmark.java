@@ -0,0 +1,167 @@
+package com.salesforce.functions.recipes.benchmarks;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLServerSocket;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509TrustManager;
+import com.salesforce.functions.recipes.db.RedisTls;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyStore;
+import java.security.SecureRandom;
+import java.security.cert.X509Certificate;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures opening a TLS connection to a local server, as the Function does when it connects to
+ * Redis: with a new SSLContext per connection, as it used to, and with the SSLContext shared by
+ * {@link RedisTls}, whose reconnects resume the TLS session of the previous connection. Each
+ * connection writes and reads one byte, so the handshake and the session ticket are complete.
+ *
+ * <pre>
+ * java -jar benchmarks/06_Data_Redis_Java/target/benchmarks.jar TlsHandshake
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TlsHandshakeBenchmark {
+  private static final String PASSWORD = "changeit";
+
+  private Path directory;
+  private SSLServerSocket server;
+  private SSLSocketFactory sharedFactory;
+  private SSLParameters sharedParameters;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    directory = Files.createTempDirectory("tls");
+    Path keyStorePath = directory.resolve("server.p12");
+    Process keytool = new ProcessBuilder(
+        Path.of(System.getProperty("java.home"), "bin", "keytool").toString(),
+        "-genkeypair", "-alias", "redis", "-keyalg", "EC", "-groupname", "secp256r1",
+        "-dname", "CN=localhost", "-ext", "SAN=dns:localhost", "-validity", "2",
+        "-keystore", keyStorePath.toString(), "-storepass", PASSWORD, "-storetype", "PKCS12")
+        .inheritIO()
+        .start();
+    if (keytool.waitFor() != 0) {
+      throw new IOException("keytool failed");
+    }
+    KeyStore keyStore = KeyStore.getInstance("PKCS12");
+    try (InputStream in = Files.newInputStream(keyStorePath)) {
+      keyStore.load(in, PASSWORD.toCharArray());
+    }
+    KeyManagerFactory keyManagers = KeyManagerFactory.getInstance("SunX509");
+    keyManagers.init(keyStore, PASSWORD.toCharArray());
+    SSLContext serverContext = SSLContext.getInstance("TLS");
+    serverContext.init(keyManagers.getKeyManagers(), null, null);
+    server = (SSLServerSocket) serverContext.getServerSocketFactory()
+        .createServerSocket(0, 50, InetAddress.getLoopbackAddress());
+    Thread acceptor = new Thread(this::accept, "tls-server");
+    acceptor.setDaemon(true);
+    acceptor.start();
+
+    // Without REDIS_TLS_TRUST_STORE, trusts any certificate as the Function did
+    RedisTls tls = RedisTls.getDefault();
+    sharedFactory = tls.getSocketFactory();
+    sharedParameters = tls.getParameters();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    server.close();
+    try (var files = Files.walk(directory)) {
+      files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+    }
+  }
+
+  @Benchmark
+  public int newContextPerConnection() throws Exception {
+    // The TLS setup InvocationsManager.getConnection() used to run for every connection
+    TrustManager bogusTrustManager = new X509TrustManager() {
+      public X509Certificate[] getAcceptedIssuers() {
+        return null;
+      }
+
+      public void checkClientTrusted(X509Certificate[] certs, String authType) {}
+
+      public void checkServerTrusted(X509Certificate[] certs, String authType) {}
+    };
+    SSLContext sslContext = SSLContext.getInstance("SSL");
+    sslContext.init(null, new TrustManager[] {bogusTrustManager}, new SecureRandom());
+    return exchange(sslContext.getSocketFactory(), sslContext.getDefaultSSLParameters());
+  }
+
+  @Benchmark
+  public int sharedContext() throws Exception {
+    return exchange(sharedFactory, sharedParameters);
+  }
+
+  private int exchange(SSLSocketFactory factory, SSLParameters parameters) throws IOException {
+    // Connected as Jedis connects, TLS layered over a TCP socket without Nagle's algorithm
+    Socket tcp = new Socket();
+    tcp.setTcpNoDelay(true);
+    tcp.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getLocalPort()));
+    try (SSLSocket socket =
+        (SSLSocket) factory.createSocket(tcp, "localhost", server.getLocalPort(), true)) {
+      socket.setSSLParameters(parameters);
+      OutputStream out = socket.getOutputStream();
+      out.write(1);
+      out.flush();
+      return socket.getInputStream().read();
+    }
+  }
+
+  private void accept() {
+    while (!server.isClosed()) {
+      try {
+        Socket socket = server.accept();
+        Thread client = new Thread(() -> serve(socket), "tls-server-client");
+        client.setDaemon(true);
+        client.start();
+      } catch (IOException e) {
+        return;
+      }
+    }
+  }
+
+  private static void serve(Socket socket) {
+    try (socket) {
+      socket.setTcpNoDelay(true);
+      InputStream in = socket.getInputStream();
+      OutputStream out = socket.getOutputStream();
+      out.write(in.read());
+      out.flush();
+      // Wait for the client to close the connection
+      in.read();
+    } catch (IOException e) {
+      // The client disconnected
+    }
+  }
+}
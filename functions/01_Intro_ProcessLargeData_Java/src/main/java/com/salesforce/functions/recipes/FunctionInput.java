@@ -1,9 +1,28 @@
 package com.salesforce.functions.recipes;
 
+import com.salesforce.functions.recipes.search.BoundingBox;
+import java.util.List;
+
 public class FunctionInput {
   private double latitude;
   private double longitude;
   private int length;
+  // Names of the school fields to return, every field when empty
+  private List<String> fields;
+  // Points of origin of a batch query, used instead of the single point above when present
+  private List<Origin> origins;
+  // Filters, every school matches when they are absent
+  private Double radius;
+  private BoundingBox boundingBox;
+  private List<String> states;
+  private List<String> levels;
+  private List<String> formats;
+  // Pagination, the page size replaces the length and the cursor of a page returns the next one
+  private Integer pageSize;
+  private String cursor;
+  // Approximate search, every school closer than this share of the distance of the last one
+  // returned is returned, exact when absent
+  private Double distanceRatio;
 
   public FunctionInput() {}
 
@@ -25,9 +44,92 @@ public class FunctionInput {
     return length;
   }
 
+  public List<String> getFields() {
+    return fields;
+  }
+
+  public void setFields(List<String> fields) {
+    this.fields = fields;
+  }
+
+  public List<Origin> getOrigins() {
+    return origins;
+  }
+
+  public void setOrigins(List<Origin> origins) {
+    this.origins = origins;
+  }
+
+  public Double getRadius() {
+    return radius;
+  }
+
+  public void setRadius(Double radius) {
+    this.radius = radius;
+  }
+
+  public BoundingBox getBoundingBox() {
+    return boundingBox;
+  }
+
+  public void setBoundingBox(BoundingBox boundingBox) {
+    this.boundingBox = boundingBox;
+  }
+
+  public List<String> getStates() {
+    return states;
+  }
+
+  public void setStates(List<String> states) {
+    this.states = states;
+  }
+
+  public List<String> getLevels() {
+    return levels;
+  }
+
+  public void setLevels(List<String> levels) {
+    this.levels = levels;
+  }
+
+  public List<String> getFormats() {
+    return formats;
+  }
+
+  public void setFormats(List<String> formats) {
+    this.formats = formats;
+  }
+
+  public Integer getPageSize() {
+    return pageSize;
+  }
+
+  public void setPageSize(Integer pageSize) {
+    this.pageSize = pageSize;
+  }
+
+  public String getCursor() {
+    return cursor;
+  }
+
+  public void setCursor(String cursor) {
+    this.cursor = cursor;
+  }
+
+  public Double getDistanceRatio() {
+    return distanceRatio;
+  }
+
+  public void setDistanceRatio(Double distanceRatio) {
+    this.distanceRatio = distanceRatio;
+  }
+
   @Override
   public String toString() {
     return "FunctionInput [latitude=" + latitude + ", longitude=" + longitude + ", length=" + length
+        + ", fields=" + fields + ", origins=" + origins + ", radius=" + radius + ", boundingBox="
+        + boundingBox + ", states=" + states + ", levels=" + levels + ", formats=" + formats
+        + ", pageSize=" + pageSize + ", cursor=" + cursor + ", distanceRatio=" + distanceRatio
         + "]";
   }
 }
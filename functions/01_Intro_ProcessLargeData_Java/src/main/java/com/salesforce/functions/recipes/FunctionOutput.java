@@ -1,15 +1,133 @@
 package com.salesforce.functions.recipes;
 
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonSerializationContext;
+import com.google.gson.JsonSerializer;
+import com.google.gson.annotations.JsonAdapter;
+import java.lang.reflect.Type;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 
+@JsonAdapter(FunctionOutput.Serializer.class)
 public class FunctionOutput {
-  private final List<School> schools;
+  private final List<NearbySchool> schools;
+  private final List<List<NearbySchool>> results;
+  private final Set<SchoolField> fields;
+  private final String nextCursor;
 
-  public FunctionOutput(List<School> schools) {
+  public FunctionOutput(List<NearbySchool> schools) {
+    this(schools, EnumSet.allOf(SchoolField.class));
+  }
+
+  public FunctionOutput(List<NearbySchool> schools, Set<SchoolField> fields) {
+    this(Collections.unmodifiableList(schools), null, fields, null);
+  }
+
+  private FunctionOutput(
+      List<NearbySchool> schools,
+      List<List<NearbySchool>> results,
+      Set<SchoolField> fields,
+      String nextCursor) {
     this.schools = schools;
+    this.results = results;
+    this.fields = Collections.unmodifiableSet(fields);
+    this.nextCursor = nextCursor;
   }
 
-  public List<School> getSchools() {
+  /**
+   * Output of a batch query, serialized as a "results" array holding the schools found for each
+   * point of origin in the order they were given.
+   *
+   * @param results Nearest schools of each point of origin
+   * @param fields Fields to serialize
+   * @return FunctionOutput
+   */
+  public static FunctionOutput batch(List<List<NearbySchool>> results, Set<SchoolField> fields) {
+    return new FunctionOutput(Collections.emptyList(), Collections.unmodifiableList(results),
+        fields, null);
+  }
+
+  /**
+   * One page of the schools of a point of origin, serialized with a "nextCursor" when another page
+   * follows it.
+   *
+   * @param schools Schools of the page
+   * @param nextCursor Cursor of the next page, or null for the last page
+   * @param fields Fields to serialize
+   * @return FunctionOutput
+   */
+  public static FunctionOutput page(
+      List<NearbySchool> schools, String nextCursor, Set<SchoolField> fields) {
+    return new FunctionOutput(Collections.unmodifiableList(schools), null, fields, nextCursor);
+  }
+
+  /**
+   * Nearest schools of a single point of origin, empty for a batch query.
+   *
+   * @return List<NearbySchool>
+   */
+  public List<NearbySchool> getSchools() {
     return schools;
   }
+
+  /**
+   * Nearest schools of each point of origin of a batch query, null for a single point of origin.
+   *
+   * @return List<List<NearbySchool>>
+   */
+  public List<List<NearbySchool>> getResults() {
+    return results;
+  }
+
+  public Set<SchoolField> getFields() {
+    return fields;
+  }
+
+  /**
+   * Cursor to pass back for the next page of a paginated query, null when there is none.
+   *
+   * @return String
+   */
+  public String getNextCursor() {
+    return nextCursor;
+  }
+
+  /**
+   * Serializes the schools with only the requested fields. Output is only ever written, so there
+   * is no matching deserializer.
+   */
+  static class Serializer implements JsonSerializer<FunctionOutput> {
+    @Override
+    public JsonElement serialize(
+        FunctionOutput value, Type type, JsonSerializationContext context) {
+      JsonObject json = new JsonObject();
+      if (value.results == null) {
+        json.add("schools", schools(value.schools, value.fields));
+        if (value.nextCursor != null) {
+          json.addProperty("nextCursor", value.nextCursor);
+        }
+      } else {
+        JsonArray results = new JsonArray(value.results.size());
+        for (List<NearbySchool> schools : value.results) {
+          JsonObject result = new JsonObject();
+          result.add("schools", schools(schools, value.fields));
+          results.add(result);
+        }
+        json.add("results", results);
+      }
+      return json;
+    }
+
+    private static JsonArray schools(List<NearbySchool> schools, Set<SchoolField> fields) {
+      JsonArray json = new JsonArray(schools.size());
+      for (NearbySchool school : schools) {
+        json.add(SchoolField.toJsonObject(school, fields));
+      }
+      return json;
+    }
+  }
 }
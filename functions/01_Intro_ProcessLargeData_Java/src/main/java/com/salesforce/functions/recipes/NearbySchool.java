@@ -0,0 +1,45 @@
+package com.salesforce.functions.recipes;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonSerializationContext;
+import com.google.gson.JsonSerializer;
+import com.google.gson.annotations.JsonAdapter;
+import java.lang.reflect.Type;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * A school returned by a query together with its distance from that query's point of origin. The
+ * school is shared with every other query on the same dataset and must not be modified; the
+ * distance belongs to this result only.
+ *
+ * <p>Serialized as the school's fields followed by "distance", the same shape callers received
+ * when the distance was stored on the school itself.
+ */
+@JsonAdapter(NearbySchool.Serializer.class)
+public final class NearbySchool {
+  private final School school;
+  private final double distance;
+
+  public NearbySchool(School school, double distance) {
+    this.school = school;
+    this.distance = distance;
+  }
+
+  public School getSchool() {
+    return school;
+  }
+
+  public double getDistance() {
+    return distance;
+  }
+
+  static class Serializer implements JsonSerializer<NearbySchool> {
+    private static final Set<SchoolField> ALL_FIELDS = EnumSet.allOf(SchoolField.class);
+
+    @Override
+    public JsonElement serialize(NearbySchool value, Type type, JsonSerializationContext context) {
+      return SchoolField.toJsonObject(value, ALL_FIELDS);
+    }
+  }
+}
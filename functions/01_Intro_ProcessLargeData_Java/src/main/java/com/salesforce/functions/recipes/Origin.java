@@ -0,0 +1,35 @@
+package com.salesforce.functions.recipes;
+
+/**
+ * A point of origin in a batch query and the number of schools to return for it.
+ */
+public class Origin {
+  private double latitude;
+  private double longitude;
+  private int length;
+
+  public Origin() {}
+
+  public Origin(double latitude, double longitude, int length) {
+    this.latitude = latitude;
+    this.longitude = longitude;
+    this.length = length;
+  }
+
+  public double getLatitude() {
+    return latitude;
+  }
+
+  public double getLongitude() {
+    return longitude;
+  }
+
+  public int getLength() {
+    return length;
+  }
+
+  @Override
+  public String toString() {
+    return "Origin [latitude=" + latitude + ", longitude=" + longitude + ", length=" + length + "]";
+  }
+}
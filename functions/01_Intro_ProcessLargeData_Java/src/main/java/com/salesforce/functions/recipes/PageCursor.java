@@ -0,0 +1,104 @@
+package com.salesforce.functions.recipes;
+
+import com.salesforce.functions.recipes.search.Distances;
+import com.salesforce.functions.recipes.search.SchoolFilter;
+import com.salesforce.functions.recipes.search.SearchAfter;
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Opaque token returned with a page of results, the next page resumes after the last school it
+ * refers to. It holds the squared chord length and position of that school, see {@link
+ * SearchAfter}, and a hash of the query it was issued for, encoded as URL-safe Base64.
+ */
+final class PageCursor {
+  private static final byte FORMAT = 1;
+  private static final int BYTES = 1 + 4 + 8 + 4;
+
+  private final int query;
+  private final double squaredChord;
+  private final int position;
+
+  private PageCursor(int query, double squaredChord, int position) {
+    this.query = query;
+    this.squaredChord = squaredChord;
+    this.position = position;
+  }
+
+  /**
+   * The cursor of a page ending with the given school.
+   *
+   * @param latitude Latitude point of origin
+   * @param longitude Longitude point of origin
+   * @param filter Filter
+   * @param school Last school of the page
+   * @param position Position of the school in the dataset
+   * @return PageCursor
+   */
+  static PageCursor after(
+      double latitude, double longitude, SchoolFilter filter, School school, int position) {
+    return new PageCursor(query(latitude, longitude, filter),
+        squaredChord(latitude, longitude, school), position);
+  }
+
+  /**
+   * Decode a cursor issued for the given query.
+   *
+   * @param cursor Encoded cursor
+   * @param latitude Latitude point of origin
+   * @param longitude Longitude point of origin
+   * @param filter Filter
+   * @return PageCursor
+   * @throws IllegalArgumentException if the cursor is malformed or was issued for another query
+   */
+  static PageCursor decode(String cursor, double latitude, double longitude, SchoolFilter filter) {
+    ByteBuffer buffer;
+    try {
+      buffer = ByteBuffer.wrap(Base64.getUrlDecoder().decode(cursor));
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+    }
+    if (buffer.remaining() != BYTES || buffer.get() != FORMAT) {
+      throw new IllegalArgumentException("Invalid cursor: " + cursor);
+    }
+    PageCursor decoded = new PageCursor(buffer.getInt(), buffer.getDouble(), buffer.getInt());
+    if (decoded.query != query(latitude, longitude, filter)) {
+      throw new IllegalArgumentException("Cursor was issued for another query: " + cursor);
+    }
+    return decoded;
+  }
+
+  String encode() {
+    ByteBuffer buffer = ByteBuffer.allocate(BYTES);
+    buffer.put(FORMAT).putInt(query).putDouble(squaredChord).putInt(position);
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+  }
+
+  /**
+   * The place a search of the given dataset resumes after. The position only orders schools at
+   * the same distance, and is only kept while the school at that position is still at the
+   * distance of the cursor; otherwise the dataset changed and every school at that distance is
+   * returned again rather than risk skipping one.
+   *
+   * @param schools Schools of the dataset
+   * @param latitude Latitude point of origin
+   * @param longitude Longitude point of origin
+   * @return SearchAfter
+   */
+  SearchAfter toSearchAfter(List<School> schools, double latitude, double longitude) {
+    boolean samePosition = position >= 0 && position < schools.size()
+        && squaredChord(latitude, longitude, schools.get(position)) == squaredChord;
+    return new SearchAfter(squaredChord, samePosition ? position : -1);
+  }
+
+  private static int query(double latitude, double longitude, SchoolFilter filter) {
+    return Objects.hash(latitude, longitude, filter);
+  }
+
+  private static double squaredChord(double latitude, double longitude, School school) {
+    return Distances.squaredChord(Distances.unitVector(latitude, longitude),
+        Distances.unitVector(school.getLatitude(), school.getLongitude()));
+  }
+}
@@ -1,14 +1,28 @@
 package com.salesforce.functions.recipes;
 
-import com.google.gson.Gson;
-import com.google.gson.stream.JsonReader;
 import com.salesforce.functions.jvm.sdk.Context;
 import com.salesforce.functions.jvm.sdk.InvocationEvent;
 import com.salesforce.functions.jvm.sdk.SalesforceFunction;
-import java.io.FileReader;
+import com.salesforce.functions.recipes.cache.ResultCache;
+import com.salesforce.functions.recipes.data.SchoolsDataset;
+import com.salesforce.functions.recipes.data.SchoolsRepository;
+import com.salesforce.functions.recipes.data.StreamingSchoolsSearch;
+import com.salesforce.functions.recipes.search.Distances;
+import com.salesforce.functions.recipes.search.ParallelScan;
+import com.salesforce.functions.recipes.search.Ranking;
+import com.salesforce.functions.recipes.search.SchoolFilter;
+import com.salesforce.functions.recipes.search.SearchAfter;
+import com.salesforce.functions.recipes.utils.Environment;
+import com.salesforce.functions.recipes.utils.Environment.DatasetMode;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -18,72 +32,324 @@ import org.slf4j.LoggerFactory;
  */
 public class ProcessLargeDataFunction implements SalesforceFunction<FunctionInput, FunctionOutput> {
   private static final Logger LOGGER = LoggerFactory.getLogger(ProcessLargeDataFunction.class);
+  // Cleared by the first invocation of the process, which logs its time to first response
+  private static final AtomicBoolean FIRST_INVOCATION = new AtomicBoolean(true);
+
+  private final SchoolsRepository repository;
+  private final DatasetMode mode;
+  private final ParallelScan parallelScan;
+  private final ResultCache resultCache;
+
+  public ProcessLargeDataFunction() {
+    this(SchoolsRepository.getDefault(), Environment.getDatasetMode(), ParallelScan.getDefault(),
+        ResultCache.getDefault());
+    // The runtime creates the function when the process starts, warm it up before traffic arrives
+    int warmupIterations = Environment.getWarmupIterations();
+    if (warmupIterations > 0) {
+      warmUp(warmupIterations);
+    }
+  }
+
+  public ProcessLargeDataFunction(
+      SchoolsRepository repository, DatasetMode mode, ParallelScan parallelScan) {
+    this(repository, mode, parallelScan, ResultCache.DISABLED);
+  }
+
+  public ProcessLargeDataFunction(
+      SchoolsRepository repository,
+      DatasetMode mode,
+      ParallelScan parallelScan,
+      ResultCache resultCache) {
+    this.repository = repository;
+    this.mode = mode;
+    this.parallelScan = parallelScan;
+    this.resultCache = resultCache;
+  }
 
   @Override
   public FunctionOutput apply(InvocationEvent<FunctionInput> event, Context context)
       throws Exception {
+    long start = System.nanoTime();
+    FunctionOutput output = query(event.getData());
+    if (FIRST_INVOCATION.compareAndSet(true, false)) {
+      // Compared between starts with and without SCHOOLS_WARMUP, it shows what the warmup saves
+      Duration toFirstResponse = Warmup.sinceProcessStart(Instant.now());
+      LOGGER.info("First invocation answered in {} ms, {} ms after the process started",
+          Duration.ofNanos(System.nanoTime() - start).toMillis(),
+          toFirstResponse == null ? "unknown" : toFirstResponse.toMillis());
+    }
+    return output;
+  }
+
+  /**
+   * Answer a query, without the invocation event and context it arrived with.
+   *
+   * @param input Query
+   * @return FunctionOutput
+   * @throws IOException if the dataset cannot be loaded
+   */
+  FunctionOutput query(FunctionInput input) throws IOException {
     // Read Input Parameters
     // - Point of Origin
-    double latitudeSt = event.getData().getLatitude();
-    double longitudeSt = event.getData().getLongitude();
+    double latitudeSt = input.getLatitude();
+    double longitudeSt = input.getLongitude();
     // - Number of results to return
-    int length = event.getData().getLength();
-
-    // Local Schools Database API by Code.org
-    // License: CC BY-NC-SA 4.0
-    // Url: https://code.org/learn/find-school/json
-    // Read Schools JSON Database into memory
-    JsonReader reader = new JsonReader(new FileReader("data/schools.json"));
-    Gson gson = new Gson();
-    JsonResponse response = gson.fromJson(reader, JsonResponse.class);
-
-    // Calculate Distance from point of origin -> Sort by Distance -> Limit results
-    List<School> schools =
-        response.getSchools().stream()
-            .map(
-                school -> {
-                  school.setDistance(
-                      distance(
-                          latitudeSt, longitudeSt, school.getLatitude(), school.getLongitude()));
-                  return school;
-                })
-            .sorted(Comparator.comparingDouble(School::getDistance))
-            .limit(length)
-            .collect(Collectors.toList());
+    int length = input.getLength();
+    // - Fields of each school to return
+    Set<SchoolField> fields = SchoolField.forJsonNames(input.getFields());
+    // - Radius, bounding box and attribute filters
+    SchoolFilter filter =
+        new SchoolFilter(input.getRadius(), input.getBoundingBox(), input.getStates(),
+            input.getLevels(), input.getFormats());
+    // - Points of Origin of a batch query
+    List<Origin> origins = input.getOrigins();
+    // - Page size and cursor of a paginated query
+    Integer pageSize = input.getPageSize();
+    String cursor = input.getCursor();
+    // - Distance ratio of an approximate search, exact by default
+    double distanceRatio = input.getDistanceRatio() != null ? input.getDistanceRatio() : 1;
+    if (!(distanceRatio > 0 && distanceRatio <= 1)) {
+      throw new IllegalArgumentException("distanceRatio must be greater than 0 and at most 1");
+    }
+
+    // Pages and streaming searches are always exact, which satisfies any ratio
+    if (pageSize != null || cursor != null) {
+      if (origins != null && !origins.isEmpty()) {
+        throw new IllegalArgumentException("Batch queries cannot be paginated");
+      }
+      if (mode == DatasetMode.STREAMING) {
+        throw new IllegalArgumentException("Pagination requires the memory dataset mode");
+      }
+      FunctionOutput page = page(latitudeSt, longitudeSt, pageSize != null ? pageSize : length,
+          cursor, filter, fields);
+      LOGGER.info("Function successfully filtered a page of {} schools", page.getSchools().size());
+      return page;
+    }
+
+    if (origins != null && !origins.isEmpty()) {
+      List<List<NearbySchool>> results = nearest(origins, filter, distanceRatio);
+      LOGGER.info("Function successfully filtered schools for {} origins", results.size());
+      return FunctionOutput.batch(results, fields);
+    }
+
+    List<NearbySchool> schools =
+        nearest(List.of(new Origin(latitudeSt, longitudeSt, length)), filter, distanceRatio).get(0);
 
     LOGGER.info("Function successfully filtered {} schools", schools.size());
 
-    return new FunctionOutput(schools);
+    return new FunctionOutput(schools, fields);
+  }
+
+  private void warmUp(int iterations) {
+    try {
+      Warmup.run(this, iterations);
+    } catch (IOException | RuntimeException e) {
+      // The function still starts, the first invocations are only slower
+      LOGGER.warn("Warmup failed", e);
+    } finally {
+      // Synthetic queries must not take the place of real ones in the result cache
+      resultCache.clear();
+    }
   }
 
   /**
-   * Calculate distance between two geographic points
+   * Find the nearest schools to each point of origin. Every origin is searched in the same
+   * snapshot of the cached dataset, or in a single pass over the file when streaming.
+   *
+   * @param origins Points of origin
+   * @param filter Filter applied to every origin
+   * @param distanceRatio Distance ratio of an approximate search in the cached dataset, 1 for an
+   *     exact one
+   * @return List<List<NearbySchool>> Nearest schools of each origin ordered by distance
+   * @throws IOException if the dataset cannot be loaded
+   */
+  private List<List<NearbySchool>> nearest(List<Origin> origins, SchoolFilter filter,
+      double distanceRatio) throws IOException {
+    // A radius or bounding box without a length returns every school matching it
+    List<Origin> limited = new ArrayList<>(origins.size());
+    for (Origin origin : origins) {
+      limited.add(
+          filter.isRange() && origin.getLength() <= 0
+              ? new Origin(origin.getLatitude(), origin.getLongitude(), Integer.MAX_VALUE)
+              : origin);
+    }
+
+    // Find the nearest schools, either in the cached dataset or while reading the file
+    if (mode == DatasetMode.STREAMING) {
+      return StreamingSchoolsSearch.nearest(repository.getPath(), limited, filter);
+    }
+    // Read Schools Database from the in-memory cache, it is loaded from disk on first use and
+    // every origin shares the snapshot
+    SchoolsDataset dataset = repository.get();
+    List<List<NearbySchool>> results = new ArrayList<>(limited.size());
+    for (Origin origin : limited) {
+      // Repeated origins are answered from the result cache when it is enabled
+      results.add(cachedNearest(dataset, origin, filter, distanceRatio));
+    }
+    if (resultCache.isEnabled()) {
+      LOGGER.debug("Result cache {}", resultCache.stats());
+    }
+    return results;
+  }
+
+  /**
+   * Find the nearest schools in the cached dataset through the result cache. Origins rounding to
+   * the same point share the candidates searched from that point, twice as many as requested, and
+   * every caller gets them ranked from its exact origin. When a school left out of the candidates
+   * could be nearer to the exact origin than the last one returned, the exact origin is searched.
+   *
+   * @param dataset Snapshot of the cached dataset
+   * @param origin Point of origin and number of results to return
+   * @param filter Filter
+   * @param distanceRatio Distance ratio of an approximate search, 1 for an exact one
+   * @return List<NearbySchool> Nearest schools ordered by distance, the same as without the cache
+   */
+  private List<NearbySchool> cachedNearest(SchoolsDataset dataset, Origin origin,
+      SchoolFilter filter, double distanceRatio) {
+    if (!resultCache.isEnabled() || filter.hasRadius() || distanceRatio < 1) {
+      // A radius is measured from the exact origin, and approximate searches depend on it, so
+      // those results are only shared by callers with the same origin
+      return resultCache.get(dataset.getVersion(), origin.getLatitude(), origin.getLongitude(),
+          origin.getLength(), filter, distanceRatio,
+          () -> nearest(dataset, origin, filter, distanceRatio));
+    }
+    int length = origin.getLength();
+    Origin rounded = new Origin(resultCache.round(origin.getLatitude()),
+        resultCache.round(origin.getLongitude()),
+        length > Integer.MAX_VALUE / 2 ? Integer.MAX_VALUE : 2 * length);
+    List<NearbySchool> candidates = resultCache.get(dataset.getVersion(), rounded.getLatitude(),
+        rounded.getLongitude(), rounded.getLength(), filter,
+        () -> nearest(dataset, rounded, filter, 1));
+
+    // Rank the candidates by squared chord length from the exact origin, as searches do
+    double[] exact = Distances.unitVector(origin.getLatitude(), origin.getLongitude());
+    double[] keys = new double[candidates.size()];
+    Integer[] order = new Integer[candidates.size()];
+    for (int i = 0; i < keys.length; i++) {
+      School school = candidates.get(i).getSchool();
+      keys[i] = Distances.squaredChord(exact,
+          Distances.unitVector(school.getLatitude(), school.getLongitude()));
+      order[i] = i;
+    }
+    // Stable, candidates with the same key stay in the order of the search from the rounded origin
+    Arrays.sort(order, Comparator.comparingDouble(i -> keys[i]));
+    int size = Math.min(length, order.length);
+
+    // Searches rank schools at the same distance by their position in the dataset, which the
+    // candidates no longer carry. Schools at the same place are already in that order, any other
+    // tie among the schools returned is resolved by searching the exact origin
+    for (int rank = 1; rank < Math.min(size + 1, order.length); rank++) {
+      if (keys[order[rank]] == keys[order[rank - 1]] && !samePlace(candidates.get(order[rank]),
+          candidates.get(order[rank - 1]))) {
+        return nearest(dataset, origin, filter, 1);
+      }
+    }
+
+    if (candidates.size() == rounded.getLength() && size > 0) {
+      // Chord lengths obey the triangle inequality: a school left out is at least as far from the
+      // exact origin as the last candidate is from the rounded one, less the distance between both
+      School last = candidates.get(candidates.size() - 1).getSchool();
+      double[] center = Distances.unitVector(rounded.getLatitude(), rounded.getLongitude());
+      double bound = Math.sqrt(Distances.squaredChord(center,
+          Distances.unitVector(last.getLatitude(), last.getLongitude())))
+          - Math.sqrt(Distances.squaredChord(center, exact));
+      if (Math.sqrt(keys[order[size - 1]]) >= bound - 1e-12) {
+        return nearest(dataset, origin, filter, 1);
+      }
+    }
+    List<NearbySchool> schools = new ArrayList<>(size);
+    for (int rank = 0; rank < size; rank++) {
+      School school = candidates.get(order[rank]).getSchool();
+      schools.add(new NearbySchool(school, Distances.miles(origin.getLatitude(),
+          origin.getLongitude(), school.getLatitude(), school.getLongitude())));
+    }
+    return schools;
+  }
+
+  private static boolean samePlace(NearbySchool left, NearbySchool right) {
+    return left.getSchool().getLatitude() == right.getSchool().getLatitude()
+        && left.getSchool().getLongitude() == right.getSchool().getLongitude();
+  }
+
+  /**
+   * Find one page of the nearest schools in the cached dataset. The search resumes after the last
+   * school of the previous page using the spatial index, the schools of previous pages are not
+   * ranked again.
    *
    * @param latitudeSt Latitude point of origin
    * @param longitudeSt Longitude point of origin
-   * @param latitudeSch Latitude school
-   * @param longitudeSch Longitude school
-   * @return double Distance between point of origin and school
+   * @param pageSize Number of schools of the page
+   * @param cursor Cursor returned with the previous page, or null for the first page
+   * @param filter Filter
+   * @param fields Fields of each school to return
+   * @return FunctionOutput The page of schools with the cursor of the next page
+   * @throws IOException if the dataset cannot be loaded
    */
-  private double distance(
-      double latitudeSt, double longitudeSt, double latitudeSch, double longitudeSch) {
-    if (latitudeSt == latitudeSch && longitudeSt == longitudeSch) {
-      return 0;
-    } else {
-      double radLatitudeSt = (Math.PI * latitudeSt) / 180;
-      double radLatitudeSch = (Math.PI * latitudeSch) / 180;
-      double theta = longitudeSt - longitudeSch;
-      double radTheta = (Math.PI * theta) / 180;
-      double dist =
-          Math.sin(radLatitudeSt) * Math.sin(radLatitudeSch)
-              + Math.cos(radLatitudeSt) * Math.cos(radLatitudeSch) * Math.cos(radTheta);
-      if (dist > 1) {
-        dist = 1;
-      }
-      dist = Math.acos(dist);
-      dist = (dist * 180) / Math.PI;
-      dist = dist * 60 * 1.1515;
-      return dist;
+  private FunctionOutput page(
+      double latitudeSt,
+      double longitudeSt,
+      int pageSize,
+      String cursor,
+      SchoolFilter filter,
+      Set<SchoolField> fields)
+      throws IOException {
+    if (pageSize <= 0) {
+      throw new IllegalArgumentException("pageSize must be greater than 0");
+    }
+    SchoolsDataset dataset = repository.get();
+    SearchAfter after = cursor == null
+        ? null
+        : PageCursor.decode(cursor, latitudeSt, longitudeSt, filter)
+            .toSearchAfter(dataset.getSchools(), latitudeSt, longitudeSt);
+
+    // Look for one school more than the page holds to know whether another page follows
+    int k = pageSize == Integer.MAX_VALUE ? pageSize : pageSize + 1;
+    Ranking nearest = dataset.nearest(latitudeSt, longitudeSt, k, filter, after, parallelScan);
+    int size = Math.min(pageSize, nearest.size());
+    List<NearbySchool> schools = new ArrayList<>(size);
+    for (int rank = 0; rank < size; rank++) {
+      schools.add(
+          new NearbySchool(dataset.getSchools().get(nearest.position(rank)), nearest.key(rank)));
+    }
+    String nextCursor = null;
+    if (nearest.size() > size) {
+      NearbySchool last = schools.get(size - 1);
+      nextCursor = PageCursor.after(latitudeSt, longitudeSt, filter, last.getSchool(),
+          nearest.position(size - 1)).encode();
+    }
+    return FunctionOutput.page(schools, nextCursor, fields);
+  }
+
+  /**
+   * Find the nearest schools in the cached dataset.
+   *
+   * @param dataset Snapshot of the cached dataset
+   * @param origin Point of origin and number of results to return
+   * @param filter Filter
+   * @param distanceRatio Distance ratio of an approximate search, 1 for an exact one
+   * @return List<NearbySchool> Nearest schools ordered by distance
+   */
+  private List<NearbySchool> nearest(SchoolsDataset dataset, Origin origin, SchoolFilter filter,
+      double distanceRatio) {
+    double latitudeSt = origin.getLatitude();
+    double longitudeSt = origin.getLongitude();
+    int length = origin.getLength();
+
+    // Find the nearest schools to the point of origin using the spatial index, or by scanning
+    // every school in parallel when that is enabled for a dataset this large
+    // The cached schools are shared with concurrent invocations, each result pairs a school with
+    // this invocation's distance without modifying it
+    // A distance ratio below 1 probes a grid of cells around the point of origin instead, and
+    // stops before it has ruled out every closer school
+    Ranking nearest = distanceRatio < 1
+        ? dataset.nearestApproximate(
+            latitudeSt, longitudeSt, length, filter, distanceRatio, parallelScan)
+        : dataset.nearest(latitudeSt, longitudeSt, length, filter, parallelScan);
+    List<NearbySchool> schools = new ArrayList<>(nearest.size());
+    for (int rank = 0; rank < nearest.size(); rank++) {
+      schools.add(
+          new NearbySchool(dataset.getSchools().get(nearest.position(rank)), nearest.key(rank)));
     }
+    return schools;
   }
 }
@@ -15,7 +15,6 @@ public class School {
   private String country;
   private double latitude;
   private double longitude;
-  private double distance;
 
   public String getName() {
     return this.name;
@@ -128,12 +127,4 @@ public class School {
   public void setLongitude(double longitude) {
     this.longitude = longitude;
   }
-
-  public double getDistance() {
-    return this.distance;
-  }
-
-  public void setDistance(double distance) {
-    this.distance = distance;
-  }
 }
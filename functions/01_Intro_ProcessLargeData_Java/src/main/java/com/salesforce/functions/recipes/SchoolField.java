@@ -0,0 +1,189 @@
+package com.salesforce.functions.recipes;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * The fields of a {@link NearbySchool} a response can contain, in the order they are written.
+ * Callers that only need a few fields can ask for them with {@link FunctionInput#getFields()} and
+ * the others are never serialized.
+ */
+public enum SchoolField {
+  NAME("name") {
+    @Override
+    JsonElement toJson(NearbySchool result) {
+      return value(result.getSchool().getName());
+    }
+  },
+  WEBSITE("website") {
+    @Override
+    JsonElement toJson(NearbySchool result) {
+      return value(result.getSchool().getWebsite());
+    }
+  },
+  DESCRIPTION("description") {
+    @Override
+    JsonElement toJson(NearbySchool result) {
+      return value(result.getSchool().getDescription());
+    }
+  },
+  LEVELS("levels") {
+    @Override
+    JsonElement toJson(NearbySchool result) {
+      return array(result.getSchool().getLevels());
+    }
+  },
+  LANGUAGES("languages") {
+    @Override
+    JsonElement toJson(NearbySchool result) {
+      return array(result.getSchool().getLanguages());
+    }
+  },
+  FORMAT("format") {
+    @Override
+    JsonElement toJson(NearbySchool result) {
+      return value(result.getSchool().getFormat());
+    }
+  },
+  FORMAT_DESCRIPTION("format_description") {
+    @Override
+    JsonElement toJson(NearbySchool result) {
+      return value(result.getSchool().getFormat_description());
+    }
+  },
+  STREET("street") {
+    @Override
+    JsonElement toJson(NearbySchool result) {
+      return value(result.getSchool().getStreet());
+    }
+  },
+  CITY("city") {
+    @Override
+    JsonElement toJson(NearbySchool result) {
+      return value(result.getSchool().getCity());
+    }
+  },
+  STATE("state") {
+    @Override
+    JsonElement toJson(NearbySchool result) {
+      return value(result.getSchool().getState());
+    }
+  },
+  ZIP("zip") {
+    @Override
+    JsonElement toJson(NearbySchool result) {
+      return value(result.getSchool().getZip());
+    }
+  },
+  COUNTRY("country") {
+    @Override
+    JsonElement toJson(NearbySchool result) {
+      return value(result.getSchool().getCountry());
+    }
+  },
+  LATITUDE("latitude") {
+    @Override
+    JsonElement toJson(NearbySchool result) {
+      return value(result.getSchool().getLatitude());
+    }
+  },
+  LONGITUDE("longitude") {
+    @Override
+    JsonElement toJson(NearbySchool result) {
+      return value(result.getSchool().getLongitude());
+    }
+  },
+  DISTANCE("distance") {
+    @Override
+    JsonElement toJson(NearbySchool result) {
+      return value(result.getDistance());
+    }
+  };
+
+  private final String jsonName;
+
+  SchoolField(String jsonName) {
+    this.jsonName = jsonName;
+  }
+
+  public String getJsonName() {
+    return jsonName;
+  }
+
+  /**
+   * Find a field by the name it has in the response.
+   *
+   * @param jsonName Field name, for example "format_description"
+   * @return SchoolField
+   * @throws IllegalArgumentException if no field has this name
+   */
+  public static SchoolField forJsonName(String jsonName) {
+    for (SchoolField field : values()) {
+      if (field.jsonName.equals(jsonName)) {
+        return field;
+      }
+    }
+    throw new IllegalArgumentException("Unknown school field: " + jsonName);
+  }
+
+  /**
+   * Resolve the fields requested by a caller.
+   *
+   * @param jsonNames Field names, null or empty for every field
+   * @return Set<SchoolField>
+   * @throws IllegalArgumentException if a name does not match any field
+   */
+  public static Set<SchoolField> forJsonNames(Collection<String> jsonNames) {
+    if (jsonNames == null || jsonNames.isEmpty()) {
+      return EnumSet.allOf(SchoolField.class);
+    }
+    Set<SchoolField> fields = EnumSet.noneOf(SchoolField.class);
+    for (String jsonName : jsonNames) {
+      fields.add(forJsonName(jsonName));
+    }
+    return fields;
+  }
+
+  /**
+   * Build a JSON object of the requested fields of a result. Missing values are added as null,
+   * which Gson drops unless it was configured to serialize nulls.
+   *
+   * @param result Result to serialize
+   * @param fields Fields to serialize
+   * @return JsonObject
+   */
+  static JsonObject toJsonObject(NearbySchool result, Set<SchoolField> fields) {
+    JsonObject object = new JsonObject();
+    for (SchoolField field : fields) {
+      object.add(field.jsonName, field.toJson(result));
+    }
+    return object;
+  }
+
+  abstract JsonElement toJson(NearbySchool result);
+
+  private static JsonElement value(String value) {
+    return value == null ? JsonNull.INSTANCE : new JsonPrimitive(value);
+  }
+
+  private static JsonElement value(Number value) {
+    return value == null ? JsonNull.INSTANCE : new JsonPrimitive(value);
+  }
+
+  private static JsonElement array(String[] values) {
+    if (values == null) {
+      return JsonNull.INSTANCE;
+    }
+    JsonArray array = new JsonArray(values.length);
+    for (String value : values) {
+      array.add(value);
+    }
+    return array;
+  }
+}
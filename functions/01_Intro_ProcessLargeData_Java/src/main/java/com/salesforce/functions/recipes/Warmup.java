@@ -0,0 +1,186 @@
+package com.salesforce.functions.recipes;
+
+import com.google.gson.Gson;
+import com.salesforce.functions.recipes.data.SchoolsRepository;
+import com.salesforce.functions.recipes.search.BoundingBox;
+import com.salesforce.functions.recipes.search.ParallelScan;
+import com.salesforce.functions.recipes.utils.Environment;
+import java.io.IOException;
+import java.io.Writer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs synthetic invocations before traffic arrives, so the first real invocation finds the
+ * dataset loaded and the search and serialization code already compiled. Queries are spread
+ * around the United States and cover plain, filtered and batch queries.
+ *
+ * <p>The first invocation of the warmup is the cold one, as the first real invocation would be
+ * without it, and the last ones show the response time the warmup leaves the function with. The
+ * main method runs a warmup in a new JVM and logs its report, to measure it outside the runtime.
+ */
+public final class Warmup {
+  private static final Logger LOGGER = LoggerFactory.getLogger(Warmup.class);
+  // Number of final invocations averaged to report the warmed-up response time
+  private static final int WARMED_SAMPLE = 100;
+
+  private Warmup() {}
+
+  /**
+   * Run a warmup in a new JVM and log its report.
+   *
+   * @param args Optional number of invocations, 1000 by default
+   * @throws IOException if the dataset cannot be loaded
+   */
+  public static void main(String[] args) throws IOException {
+    int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 1_000;
+    // Built without the result cache, every synthetic invocation runs a search
+    ProcessLargeDataFunction function =
+        new ProcessLargeDataFunction(SchoolsRepository.getDefault(), Environment.getDatasetMode(),
+            ParallelScan.getDefault());
+    run(function, iterations);
+  }
+
+  /**
+   * Invoke a function with synthetic queries.
+   *
+   * @param function Function to warm up
+   * @param iterations Number of invocations, at least 1
+   * @return Report Response times of the first and last invocations
+   * @throws IOException if the dataset cannot be loaded
+   */
+  public static Report run(ProcessLargeDataFunction function, int iterations) throws IOException {
+    Gson gson = new Gson();
+    Random random = new Random(42);
+    long start = System.nanoTime();
+    long first = 0;
+    Instant firstResponse = null;
+    long warmed = 0;
+    for (int i = 0; i < iterations; i++) {
+      long invocation = System.nanoTime();
+      // The output is serialized too, it is part of every response
+      gson.toJson(function.query(input(i, random)), Writer.nullWriter());
+      long elapsed = System.nanoTime() - invocation;
+      if (i == 0) {
+        first = elapsed;
+        firstResponse = Instant.now();
+      }
+      if (i >= iterations - WARMED_SAMPLE) {
+        warmed += elapsed;
+      }
+    }
+    Duration sinceStart = Duration.ofNanos(System.nanoTime() - start);
+    Report report = new Report(sinceProcessStart(firstResponse), Duration.ofNanos(first),
+        Duration.ofNanos(warmed / Math.min(iterations, WARMED_SAMPLE)), sinceStart, iterations);
+    LOGGER.info("Warmup {}", report);
+    return report;
+  }
+
+  /**
+   * Time from the start of the process to an instant.
+   *
+   * @param instant Instant
+   * @return Duration Null when the start time of the process is not available
+   */
+  static Duration sinceProcessStart(Instant instant) {
+    return ProcessHandle.current().info().startInstant()
+        .map(started -> Duration.between(started, instant))
+        .orElse(null);
+  }
+
+  private static FunctionInput input(int iteration, Random random) {
+    double latitude = 25 + random.nextDouble() * 24;
+    double longitude = -124 + random.nextDouble() * 57;
+    FunctionInput input = new FunctionInput(latitude, longitude, 1 + random.nextInt(50));
+    switch (iteration % 4) {
+      case 1:
+        input.setRadius(50 + random.nextDouble() * 200);
+        input.setLevels(List.of("high"));
+        break;
+      case 2:
+        input.setBoundingBox(new BoundingBox(latitude - 2, longitude - 2, latitude + 2,
+            longitude + 2));
+        break;
+      case 3:
+        List<Origin> origins = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+          origins.add(new Origin(latitude + i, longitude - i, 5));
+        }
+        input.setOrigins(origins);
+        input.setFields(List.of("name", "city", "distance"));
+        break;
+      default:
+        break;
+    }
+    return input;
+  }
+
+  /**
+   * Response times measured during a warmup.
+   */
+  public static final class Report {
+    private final Duration toFirstResponse;
+    private final Duration first;
+    private final Duration warmed;
+    private final Duration total;
+    private final int iterations;
+
+    Report(Duration toFirstResponse, Duration first, Duration warmed, Duration total,
+        int iterations) {
+      this.toFirstResponse = toFirstResponse;
+      this.first = first;
+      this.warmed = warmed;
+      this.total = total;
+      this.iterations = iterations;
+    }
+
+    /**
+     * Time from the start of the process to the end of the first invocation.
+     *
+     * @return Optional<Duration> Empty when the start time of the process is not available
+     */
+    public Optional<Duration> getTimeToFirstResponse() {
+      return Optional.ofNullable(toFirstResponse);
+    }
+
+    /**
+     * Response time of the first invocation, including loading the dataset.
+     *
+     * @return Duration
+     */
+    public Duration getFirst() {
+      return first;
+    }
+
+    /**
+     * Mean response time of the last invocations.
+     *
+     * @return Duration
+     */
+    public Duration getWarmed() {
+      return warmed;
+    }
+
+    public Duration getTotal() {
+      return total;
+    }
+
+    public int getIterations() {
+      return iterations;
+    }
+
+    @Override
+    public String toString() {
+      return "[timeToFirstResponse="
+          + (toFirstResponse == null ? "unknown" : toFirstResponse.toMillis() + " ms")
+          + ", first=" + first.toMillis() + " ms, warmed=" + warmed.toNanos() / 1_000 + " us"
+          + ", total=" + total.toMillis() + " ms, iterations=" + iterations + "]";
+    }
+  }
+}
@@ -0,0 +1,269 @@
+package com.salesforce.functions.recipes.cache;
+
+import com.salesforce.functions.recipes.NearbySchool;
+import com.salesforce.functions.recipes.search.SchoolFilter;
+import com.salesforce.functions.recipes.utils.Environment;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Bounded least-recently-used cache of query results, shared by every invocation in the process.
+ * Callers can round points of origin to a fixed number of decimal places with {@link #round}, so
+ * nearby origins share an entry, the result cached is then the one for the rounded origin. Entries
+ * expire after a time to live and are all dropped as soon as a different dataset snapshot is
+ * queried.
+ */
+public final class ResultCache {
+  public static final ResultCache DISABLED = new ResultCache(0, Duration.ZERO, 0);
+
+  private final int maxSize;
+  private final long ttlNanos;
+  private final double scale;
+  private final LongSupplier clock;
+  private final Map<Key, CachedResult> entries;
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong evictions = new AtomicLong();
+  private long datasetVersion;
+
+  /**
+   * Create a cache.
+   *
+   * @param maxSize Largest number of results kept, 0 disables the cache
+   * @param ttl How long a result is kept
+   * @param precision Number of decimal places origins are rounded to
+   */
+  public ResultCache(int maxSize, Duration ttl, int precision) {
+    this(maxSize, ttl, precision, System::nanoTime);
+  }
+
+  ResultCache(int maxSize, Duration ttl, int precision, LongSupplier clock) {
+    this.maxSize = maxSize;
+    this.ttlNanos = ttl.toNanos();
+    this.scale = Math.pow(10, precision);
+    this.clock = clock;
+    this.entries =
+        new LinkedHashMap<>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<Key, CachedResult> eldest) {
+            if (size() > ResultCache.this.maxSize) {
+              evictions.incrementAndGet();
+              return true;
+            }
+            return false;
+          }
+        };
+  }
+
+  /**
+   * The cache shared by every invocation in this process, configured from the environment.
+   *
+   * @return ResultCache
+   */
+  public static ResultCache getDefault() {
+    return DefaultHolder.INSTANCE;
+  }
+
+  public boolean isEnabled() {
+    return maxSize > 0;
+  }
+
+  /**
+   * Round a latitude or longitude to the precision of the cache.
+   *
+   * @param degrees Latitude or longitude
+   * @return double
+   */
+  public double round(double degrees) {
+    return isEnabled() ? Math.round(degrees * scale) / scale : degrees;
+  }
+
+  /**
+   * Get the result of a query, computing it on a miss. The query runs outside the cache's lock,
+   * two invocations missing on the same key at once both compute it.
+   *
+   * @param datasetVersion Version of the dataset snapshot the query runs on
+   * @param latitude Latitude point of origin, or rounded with {@link #round} to share the result
+   * @param longitude Longitude point of origin, or rounded with {@link #round} to share the
+   *     result
+   * @param length Number of results
+   * @param filter Filter
+   * @param query Computes the result on a miss
+   * @return List<NearbySchool> Unmodifiable result
+   */
+  public List<NearbySchool> get(
+      long datasetVersion,
+      double latitude,
+      double longitude,
+      int length,
+      SchoolFilter filter,
+      Supplier<List<NearbySchool>> query) {
+    return get(datasetVersion, latitude, longitude, length, filter, 1, query);
+  }
+
+  /**
+   * Get the result of a query that may be approximate, computing it on a miss. Results of
+   * different distance ratios are cached apart.
+   *
+   * @param datasetVersion Version of the dataset snapshot the query runs on
+   * @param latitude Latitude point of origin, or rounded with {@link #round} to share the result
+   * @param longitude Longitude point of origin, or rounded with {@link #round} to share the
+   *     result
+   * @param length Number of results
+   * @param filter Filter
+   * @param distanceRatio Distance ratio of an approximate query, 1 for an exact one
+   * @param query Computes the result on a miss
+   * @return List<NearbySchool> Unmodifiable result
+   */
+  public List<NearbySchool> get(
+      long datasetVersion,
+      double latitude,
+      double longitude,
+      int length,
+      SchoolFilter filter,
+      double distanceRatio,
+      Supplier<List<NearbySchool>> query) {
+    if (!isEnabled()) {
+      return query.get();
+    }
+    Key key = new Key(latitude, longitude, length, filter, distanceRatio);
+    long now = clock.getAsLong();
+    synchronized (this) {
+      if (this.datasetVersion != datasetVersion) {
+        // The dataset was reloaded, every cached result may be stale
+        entries.clear();
+        this.datasetVersion = datasetVersion;
+      }
+      CachedResult entry = entries.get(key);
+      if (entry != null && now - entry.created < ttlNanos) {
+        hits.incrementAndGet();
+        return entry.schools;
+      }
+    }
+    misses.incrementAndGet();
+    List<NearbySchool> schools = List.copyOf(query.get());
+    synchronized (this) {
+      if (this.datasetVersion == datasetVersion) {
+        entries.put(key, new CachedResult(schools, now));
+      }
+    }
+    return schools;
+  }
+
+  /**
+   * Drop every cached result.
+   */
+  public synchronized void clear() {
+    entries.clear();
+  }
+
+  /**
+   * Counters to size the cache with.
+   *
+   * @return Stats
+   */
+  public Stats stats() {
+    int size;
+    synchronized (this) {
+      size = entries.size();
+    }
+    return new Stats(hits.get(), misses.get(), evictions.get(), size);
+  }
+
+  /**
+   * Snapshot of the cache's counters since the process started.
+   */
+  public static final class Stats {
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final int size;
+
+    Stats(long hits, long misses, long evictions, int size) {
+      this.hits = hits;
+      this.misses = misses;
+      this.evictions = evictions;
+      this.size = size;
+    }
+
+    public long getHits() {
+      return hits;
+    }
+
+    public long getMisses() {
+      return misses;
+    }
+
+    public long getEvictions() {
+      return evictions;
+    }
+
+    public int getSize() {
+      return size;
+    }
+
+    @Override
+    public String toString() {
+      return "Stats [hits=" + hits + ", misses=" + misses + ", evictions=" + evictions + ", size="
+          + size + "]";
+    }
+  }
+
+  private static final class Key {
+    private final double latitude;
+    private final double longitude;
+    private final int length;
+    private final SchoolFilter filter;
+    private final double distanceRatio;
+
+    Key(double latitude, double longitude, int length, SchoolFilter filter, double distanceRatio) {
+      this.latitude = latitude;
+      this.longitude = longitude;
+      this.length = length;
+      this.filter = filter;
+      this.distanceRatio = distanceRatio;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) o;
+      return Double.compare(latitude, other.latitude) == 0
+          && Double.compare(longitude, other.longitude) == 0
+          && length == other.length
+          && filter.equals(other.filter)
+          && Double.compare(distanceRatio, other.distanceRatio) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(latitude, longitude, length, filter, distanceRatio);
+    }
+  }
+
+  private static final class CachedResult {
+    final List<NearbySchool> schools;
+    final long created;
+
+    CachedResult(List<NearbySchool> schools, long created) {
+      this.schools = schools;
+      this.created = created;
+    }
+  }
+
+  private static class DefaultHolder {
+    static final ResultCache INSTANCE =
+        new ResultCache(
+            Environment.getResultCacheSize(),
+            Environment.getResultCacheTtl(),
+            Environment.getResultCachePrecision());
+  }
+}
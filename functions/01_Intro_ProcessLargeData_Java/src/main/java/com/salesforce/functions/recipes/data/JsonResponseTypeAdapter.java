@@ -0,0 +1,66 @@
+package com.salesforce.functions.recipes.data;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.salesforce.functions.recipes.JsonResponse;
+import com.salesforce.functions.recipes.School;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads and writes the schools document without reflection. Each document read gets its own
+ * {@link StringPool}, so values repeated across its schools are shared and the pool is released
+ * with the document.
+ */
+public final class JsonResponseTypeAdapter extends TypeAdapter<JsonResponse> {
+  private static final SchoolTypeAdapter WRITER = new SchoolTypeAdapter();
+
+  @Override
+  public JsonResponse read(JsonReader in) throws IOException {
+    if (in.peek() == JsonToken.NULL) {
+      in.nextNull();
+      return null;
+    }
+    JsonResponse response = new JsonResponse();
+    in.beginObject();
+    while (in.hasNext()) {
+      if (!"schools".equals(in.nextName()) || in.peek() != JsonToken.BEGIN_ARRAY) {
+        in.skipValue();
+        continue;
+      }
+      SchoolTypeAdapter reader = new SchoolTypeAdapter(new StringPool());
+      List<School> schools = new ArrayList<>();
+      in.beginArray();
+      while (in.hasNext()) {
+        schools.add(reader.read(in));
+      }
+      in.endArray();
+      response.setSchools(schools);
+    }
+    in.endObject();
+    return response;
+  }
+
+  @Override
+  public void write(JsonWriter out, JsonResponse response) throws IOException {
+    if (response == null) {
+      out.nullValue();
+      return;
+    }
+    out.beginObject();
+    out.name("schools");
+    if (response.getSchools() == null) {
+      out.nullValue();
+    } else {
+      out.beginArray();
+      for (School school : response.getSchools()) {
+        WRITER.write(out, school);
+      }
+      out.endArray();
+    }
+    out.endObject();
+  }
+}
@@ -0,0 +1,178 @@
+package com.salesforce.functions.recipes.data;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.salesforce.functions.recipes.School;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads and writes a {@link School} field by field without reflection. Fields that take a small
+ * set of values across the dataset (city, state, country, format and its description, levels and
+ * languages) are deduplicated through a {@link StringPool} when one is given, so the cached dataset
+ * holds each of those values once.
+ */
+public final class SchoolTypeAdapter extends TypeAdapter<School> {
+  private final StringPool pool;
+
+  /**
+   * Create an adapter that does not deduplicate values, safe to share between documents.
+   */
+  public SchoolTypeAdapter() {
+    this(null);
+  }
+
+  /**
+   * Create an adapter deduplicating values through a pool. The pool keeps every value it has seen,
+   * use one adapter per document.
+   *
+   * @param pool Pool, or null to keep every value as read
+   */
+  SchoolTypeAdapter(StringPool pool) {
+    this.pool = pool;
+  }
+
+  @Override
+  public School read(JsonReader in) throws IOException {
+    if (in.peek() == JsonToken.NULL) {
+      in.nextNull();
+      return null;
+    }
+    School school = new School();
+    in.beginObject();
+    while (in.hasNext()) {
+      switch (in.nextName()) {
+        case "name":
+          school.setName(readString(in));
+          break;
+        case "website":
+          school.setWebsite(readString(in));
+          break;
+        case "description":
+          school.setDescription(readString(in));
+          break;
+        case "levels":
+          school.setLevels(intern(readStrings(in)));
+          break;
+        case "languages":
+          school.setLanguages(intern(readStrings(in)));
+          break;
+        case "format":
+          school.setFormat(intern(readString(in)));
+          break;
+        case "format_description":
+          school.setFormat_description(intern(readString(in)));
+          break;
+        case "street":
+          school.setStreet(readString(in));
+          break;
+        case "city":
+          school.setCity(intern(readString(in)));
+          break;
+        case "state":
+          school.setState(intern(readString(in)));
+          break;
+        case "zip":
+          school.setZip(readString(in));
+          break;
+        case "country":
+          school.setCountry(intern(readString(in)));
+          break;
+        case "latitude":
+          school.setLatitude(readDouble(in));
+          break;
+        case "longitude":
+          school.setLongitude(readDouble(in));
+          break;
+        default:
+          in.skipValue();
+      }
+    }
+    in.endObject();
+    return school;
+  }
+
+  @Override
+  public void write(JsonWriter out, School school) throws IOException {
+    if (school == null) {
+      out.nullValue();
+      return;
+    }
+    out.beginObject();
+    out.name("name").value(school.getName());
+    out.name("website").value(school.getWebsite());
+    out.name("description").value(school.getDescription());
+    out.name("levels");
+    writeStrings(out, school.getLevels());
+    out.name("languages");
+    writeStrings(out, school.getLanguages());
+    out.name("format").value(school.getFormat());
+    out.name("format_description").value(school.getFormat_description());
+    out.name("street").value(school.getStreet());
+    out.name("city").value(school.getCity());
+    out.name("state").value(school.getState());
+    out.name("zip").value(school.getZip());
+    out.name("country").value(school.getCountry());
+    out.name("latitude").value(school.getLatitude());
+    out.name("longitude").value(school.getLongitude());
+    out.endObject();
+  }
+
+  private String intern(String value) {
+    return pool != null ? pool.intern(value) : value;
+  }
+
+  private String[] intern(String[] values) {
+    return pool != null ? pool.intern(values) : values;
+  }
+
+  // Accepts the same values as Gson's reflective binding: strings, numbers and booleans
+  private static String readString(JsonReader in) throws IOException {
+    JsonToken token = in.peek();
+    if (token == JsonToken.NULL) {
+      in.nextNull();
+      return null;
+    }
+    if (token == JsonToken.BOOLEAN) {
+      return Boolean.toString(in.nextBoolean());
+    }
+    return in.nextString();
+  }
+
+  private static String[] readStrings(JsonReader in) throws IOException {
+    if (in.peek() == JsonToken.NULL) {
+      in.nextNull();
+      return null;
+    }
+    List<String> values = new ArrayList<>();
+    in.beginArray();
+    while (in.hasNext()) {
+      values.add(readString(in));
+    }
+    in.endArray();
+    return values.toArray(new String[0]);
+  }
+
+  private static double readDouble(JsonReader in) throws IOException {
+    if (in.peek() == JsonToken.NULL) {
+      in.nextNull();
+      return 0;
+    }
+    return in.nextDouble();
+  }
+
+  private static void writeStrings(JsonWriter out, String[] values) throws IOException {
+    if (values == null) {
+      out.nullValue();
+      return;
+    }
+    out.beginArray();
+    for (String value : values) {
+      out.value(value);
+    }
+    out.endArray();
+  }
+}
@@ -0,0 +1,423 @@
+package com.salesforce.functions.recipes.data;
+
+import com.salesforce.functions.recipes.School;
+import com.salesforce.functions.recipes.search.Coordinates;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+
+/**
+ * Compact binary version of the schools JSON file, opened with {@link FileChannel#map} so startup
+ * does not pay for parsing text. The file is laid out as:
+ *
+ * <pre>
+ * header       magic, version, source size, modification time and checksum, school, list and
+ *              string counts
+ * latitudes    double[schools]
+ * longitudes   double[schools]
+ * records      int[schools][RECORD_INTS], string ids of each field and ranges of the list table
+ * lists        int[lists], string ids of the levels and languages arrays
+ * offsets      int[strings + 1], start of each string in the string table
+ * strings      UTF-8 bytes of every distinct string
+ * </pre>
+ *
+ * <p>The coordinate columns are copied into memory for the search kernels, schools are decoded
+ * from the mapped file only when they are read.
+ *
+ * <p>Convert a JSON file ahead of time with:
+ *
+ * <pre>
+ * ./mvnw compile exec:java \
+ *     -Dexec.mainClass=com.salesforce.functions.recipes.data.SchoolsBinaryFormat \
+ *     -Dexec.args="data/schools.json data/schools.bin"
+ * </pre>
+ */
+public final class SchoolsBinaryFormat {
+  private static final int MAGIC = 0x53434842; // "SCHB"
+  private static final int VERSION = 2;
+  private static final int HEADER_BYTES = 4 + 4 + 8 + 8 + 8 + 4 + 4 + 4;
+  private static final int NULL = -1;
+
+  // Record layout: one string id per text field, then start and count of each array
+  private static final int NAME = 0;
+  private static final int WEBSITE = 1;
+  private static final int DESCRIPTION = 2;
+  private static final int FORMAT = 3;
+  private static final int FORMAT_DESCRIPTION = 4;
+  private static final int STREET = 5;
+  private static final int CITY = 6;
+  private static final int STATE = 7;
+  private static final int ZIP = 8;
+  private static final int COUNTRY = 9;
+  private static final int LEVELS = 10;
+  private static final int LANGUAGES = 12;
+  private static final int RECORD_INTS = 14;
+
+  private SchoolsBinaryFormat() {}
+
+  /**
+   * Convert a schools JSON file into the binary format.
+   *
+   * @param args Source JSON file and destination binary file
+   * @throws IOException if either file cannot be read or written
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length != 2) {
+      System.err.println("Usage: SchoolsBinaryFormat <schools.json> <schools.bin>");
+      System.exit(1);
+    }
+    convert(Paths.get(args[0]), Paths.get(args[1]));
+  }
+
+  /**
+   * Convert a schools JSON file into the binary format.
+   *
+   * @param source Schools JSON file
+   * @param target Binary file to write
+   * @throws IOException if either file cannot be read or written
+   */
+  public static void convert(Path source, Path target) throws IOException {
+    BasicFileAttributes attributes = Files.readAttributes(source, BasicFileAttributes.class);
+    CRC32 crc = new CRC32();
+    List<School> schools;
+    try (InputStream in = new CheckedInputStream(Files.newInputStream(source), crc)) {
+      schools = SchoolsRepository.parse(in);
+    }
+    write(target, schools, attributes.size(), attributes.lastModifiedTime().toMillis(),
+        crc.getValue());
+  }
+
+  /**
+   * Write schools in the binary format. The file is written next to the target and moved in
+   * place, so readers never see a partial file.
+   *
+   * @param target Binary file to write
+   * @param schools Schools to write
+   * @param sourceSize Size of the JSON file the schools were read from
+   * @param sourceModified Modification time in milliseconds of the JSON file the schools were read
+   *     from
+   * @param sourceChecksum CRC32 of the JSON file the schools were read from
+   * @throws IOException if the file cannot be written
+   */
+  public static void write(Path target, List<School> schools, long sourceSize,
+      long sourceModified, long sourceChecksum) throws IOException {
+    Map<String, Integer> ids = new HashMap<>();
+    List<byte[]> strings = new ArrayList<>();
+    List<Integer> lists = new ArrayList<>();
+    int[][] records = new int[schools.size()][];
+    for (int i = 0; i < schools.size(); i++) {
+      School school = schools.get(i);
+      int[] record = new int[RECORD_INTS];
+      record[NAME] = intern(school.getName(), ids, strings);
+      record[WEBSITE] = intern(school.getWebsite(), ids, strings);
+      record[DESCRIPTION] = intern(school.getDescription(), ids, strings);
+      record[FORMAT] = intern(school.getFormat(), ids, strings);
+      record[FORMAT_DESCRIPTION] = intern(school.getFormat_description(), ids, strings);
+      record[STREET] = intern(school.getStreet(), ids, strings);
+      record[CITY] = intern(school.getCity(), ids, strings);
+      record[STATE] = intern(school.getState(), ids, strings);
+      record[ZIP] = intern(school.getZip(), ids, strings);
+      record[COUNTRY] = intern(school.getCountry(), ids, strings);
+      appendList(school.getLevels(), record, LEVELS, lists, ids, strings);
+      appendList(school.getLanguages(), record, LANGUAGES, lists, ids, strings);
+      records[i] = record;
+    }
+
+    Path temp = Files.createTempFile(target.toAbsolutePath().getParent(), "schools", ".tmp");
+    try {
+      try (OutputStream file = Files.newOutputStream(temp);
+          DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(sourceSize);
+        out.writeLong(sourceModified);
+        out.writeLong(sourceChecksum);
+        out.writeInt(schools.size());
+        out.writeInt(lists.size());
+        out.writeInt(strings.size());
+        for (School school : schools) {
+          out.writeDouble(school.getLatitude());
+        }
+        for (School school : schools) {
+          out.writeDouble(school.getLongitude());
+        }
+        for (int[] record : records) {
+          for (int value : record) {
+            out.writeInt(value);
+          }
+        }
+        for (int id : lists) {
+          out.writeInt(id);
+        }
+        int offset = 0;
+        for (byte[] string : strings) {
+          out.writeInt(offset);
+          offset += string.length;
+        }
+        out.writeInt(offset);
+        for (byte[] string : strings) {
+          out.write(string);
+        }
+      }
+      Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+  }
+
+  /**
+   * Map a binary file written from a JSON source of the given size. The caller still compares the
+   * modification time or checksum of the source with {@link Mapped#sourceModified} and {@link
+   * Mapped#sourceChecksum}.
+   *
+   * @param path Binary file
+   * @param sourceSize Expected size of the JSON file
+   * @return Mapped The mapped file, or null if it is missing or was written from another source
+   * @throws IOException if the file cannot be read, is not in the binary format or is corrupt
+   */
+  static Mapped open(Path path, long sourceSize) throws IOException {
+    if (!Files.isRegularFile(path)) {
+      return null;
+    }
+    Mapped mapped = open(path);
+    return mapped.sourceSize == sourceSize ? mapped : null;
+  }
+
+  /**
+   * Map a binary file.
+   *
+   * @param path Binary file
+   * @return Mapped
+   * @throws IOException if the file cannot be read, is not in the binary format, is truncated or
+   *     refers to strings and lists outside of its tables
+   */
+  static Mapped open(Path path) throws IOException {
+    MappedByteBuffer buffer;
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      // The mapping stays valid after the channel is closed
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+    if (buffer.limit() < HEADER_BYTES
+        || buffer.getInt(0) != MAGIC
+        || buffer.getInt(4) != VERSION) {
+      throw new IOException(path + " is not a schools binary file of version " + VERSION);
+    }
+    // The counts of the header must fit the file before any section is read at their offsets
+    int count = buffer.getInt(32);
+    int listCount = buffer.getInt(36);
+    int stringCount = buffer.getInt(40);
+    long stringsStart = count < 0 || listCount < 0 || stringCount < 0
+        ? Long.MAX_VALUE
+        : HEADER_BYTES + (2L * 8 + 4L * RECORD_INTS) * count + 4L * listCount
+            + 4L * (stringCount + 1);
+    if (stringsStart > buffer.limit()
+        || buffer.getInt((int) stringsStart - 4) < 0
+        || stringsStart + buffer.getInt((int) stringsStart - 4) > buffer.limit()) {
+      throw new IOException(path + " is truncated or corrupt");
+    }
+    Mapped mapped = new Mapped(buffer);
+    // Schools are decoded lazily, a bad id would otherwise only fail the query that reads it
+    if (!mapped.hasValidIds()) {
+      throw new IOException(path + " is truncated or corrupt");
+    }
+    return mapped;
+  }
+
+  private static int intern(String value, Map<String, Integer> ids, List<byte[]> strings) {
+    if (value == null) {
+      return NULL;
+    }
+    return ids.computeIfAbsent(value, key -> {
+      strings.add(key.getBytes(StandardCharsets.UTF_8));
+      return strings.size() - 1;
+    });
+  }
+
+  private static void appendList(
+      String[] values,
+      int[] record,
+      int field,
+      List<Integer> lists,
+      Map<String, Integer> ids,
+      List<byte[]> strings) {
+    record[field] = lists.size();
+    record[field + 1] = values == null ? NULL : values.length;
+    if (values != null) {
+      for (String value : values) {
+        lists.add(intern(value, ids, strings));
+      }
+    }
+  }
+
+  /**
+   * A binary file mapped into memory.
+   */
+  static final class Mapped {
+    final long sourceSize;
+    final long sourceModified;
+    final long sourceChecksum;
+    private final ByteBuffer buffer;
+    private final int count;
+    private final int listCount;
+    private final int stringCount;
+    private final int recordsStart;
+    private final int listsStart;
+    private final int offsetsStart;
+    private final int stringsStart;
+
+    private Mapped(ByteBuffer buffer) {
+      this.buffer = buffer;
+      this.sourceSize = buffer.getLong(8);
+      this.sourceModified = buffer.getLong(16);
+      this.sourceChecksum = buffer.getLong(24);
+      this.count = buffer.getInt(32);
+      this.listCount = buffer.getInt(36);
+      this.stringCount = buffer.getInt(40);
+      this.recordsStart = HEADER_BYTES + 2 * 8 * count;
+      this.listsStart = recordsStart + 4 * RECORD_INTS * count;
+      this.offsetsStart = listsStart + 4 * listCount;
+      this.stringsStart = offsetsStart + 4 * (stringCount + 1);
+    }
+
+    /**
+     * Check that the string offsets are in order and that every string id and list range of the
+     * records points inside its table.
+     *
+     * @return boolean
+     */
+    private boolean hasValidIds() {
+      if (buffer.getInt(offsetsStart) < 0) {
+        return false;
+      }
+      for (int id = 0; id < stringCount; id++) {
+        if (buffer.getInt(offsetsStart + 4 * id) > buffer.getInt(offsetsStart + 4 * (id + 1))) {
+          return false;
+        }
+      }
+      for (int position = 0; position < count; position++) {
+        int record = recordsStart + 4 * RECORD_INTS * position;
+        for (int field = NAME; field <= COUNTRY; field++) {
+          if (!isValidId(buffer.getInt(record + 4 * field))) {
+            return false;
+          }
+        }
+        if (!isValidList(record, LEVELS) || !isValidList(record, LANGUAGES)) {
+          return false;
+        }
+      }
+      for (int i = 0; i < listCount; i++) {
+        if (!isValidId(buffer.getInt(listsStart + 4 * i))) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private boolean isValidId(int id) {
+      return id >= NULL && id < stringCount;
+    }
+
+    private boolean isValidList(int record, int field) {
+      int start = buffer.getInt(record + 4 * field);
+      int length = buffer.getInt(record + 4 * (field + 1));
+      return length == NULL || (start >= 0 && length >= 0 && (long) start + length <= listCount);
+    }
+
+    Coordinates coordinates() {
+      double[] latitudes = new double[count];
+      double[] longitudes = new double[count];
+      ByteBuffer columns = buffer.duplicate().position(HEADER_BYTES);
+      columns.asDoubleBuffer().get(latitudes).get(longitudes);
+      return new Coordinates(latitudes, longitudes);
+    }
+
+    List<School> schools() {
+      return new LazySchools();
+    }
+
+    private School school(int position) {
+      int record = recordsStart + 4 * RECORD_INTS * position;
+      School school = new School();
+      school.setName(string(record, NAME));
+      school.setWebsite(string(record, WEBSITE));
+      school.setDescription(string(record, DESCRIPTION));
+      school.setFormat(string(record, FORMAT));
+      school.setFormat_description(string(record, FORMAT_DESCRIPTION));
+      school.setStreet(string(record, STREET));
+      school.setCity(string(record, CITY));
+      school.setState(string(record, STATE));
+      school.setZip(string(record, ZIP));
+      school.setCountry(string(record, COUNTRY));
+      school.setLevels(list(record, LEVELS));
+      school.setLanguages(list(record, LANGUAGES));
+      school.setLatitude(buffer.getDouble(HEADER_BYTES + 8 * position));
+      school.setLongitude(buffer.getDouble(HEADER_BYTES + 8 * (count + position)));
+      return school;
+    }
+
+    private String string(int record, int field) {
+      return string(buffer.getInt(record + 4 * field));
+    }
+
+    private String[] list(int record, int field) {
+      int start = buffer.getInt(record + 4 * field);
+      int length = buffer.getInt(record + 4 * (field + 1));
+      if (length == NULL) {
+        return null;
+      }
+      String[] values = new String[length];
+      for (int i = 0; i < length; i++) {
+        values[i] = string(buffer.getInt(listsStart + 4 * (start + i)));
+      }
+      return values;
+    }
+
+    private String string(int id) {
+      if (id == NULL) {
+        return null;
+      }
+      int start = buffer.getInt(offsetsStart + 4 * id);
+      int end = buffer.getInt(offsetsStart + 4 * (id + 1));
+      byte[] bytes = new byte[end - start];
+      // Read through a duplicate, the shared buffer's position must not change
+      buffer.duplicate().position(stringsStart + start).get(bytes);
+      return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /** Schools decoded from the mapped file each time they are read. */
+    private final class LazySchools extends AbstractList<School> implements RandomAccess {
+      @Override
+      public School get(int index) {
+        if (index < 0 || index >= count) {
+          throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + count);
+        }
+        return school(index);
+      }
+
+      @Override
+      public int size() {
+        return count;
+      }
+    }
+  }
+}
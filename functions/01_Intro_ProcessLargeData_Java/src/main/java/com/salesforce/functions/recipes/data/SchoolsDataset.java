@@ -0,0 +1,453 @@
+package com.salesforce.functions.recipes.data;
+
+import com.salesforce.functions.recipes.School;
+import com.salesforce.functions.recipes.search.AttributeIndex;
+import com.salesforce.functions.recipes.search.Coordinates;
+import com.salesforce.functions.recipes.search.GridIndex;
+import com.salesforce.functions.recipes.search.KdTree;
+import com.salesforce.functions.recipes.search.ParallelScan;
+import com.salesforce.functions.recipes.search.Ranking;
+import com.salesforce.functions.recipes.search.SchoolFilter;
+import com.salesforce.functions.recipes.search.SearchAfter;
+import java.nio.file.attribute.FileTime;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Immutable snapshot of the schools dataset as it was read from disk. Searches run over the
+ * columnar {@link Coordinates} and the spatial index built over them; the {@link School} records
+ * are only read for the results returned, and may be materialized lazily by the list holding them.
+ * Snapshots are shared between concurrent invocations, so the schools they hold must never be
+ * modified.
+ *
+ * <p>A {@link SchoolsDelta} is applied copy-on-write: the new snapshot shares the schools and index
+ * read from disk, masks the schools removed or replaced, and indexes the added and updated schools
+ * on their own. Invocations holding the previous snapshot are not affected.
+ */
+public final class SchoolsDataset {
+  private static final AtomicLong VERSIONS = new AtomicLong();
+  // Schools changed by deltas are kept apart from the schools read from disk up to this many, or
+  // one in COMPACT_RATIO of them if that is more, past it the whole index is rebuilt
+  private static final int MIN_OVERLAY_SIZE = 1_024;
+  private static final int COMPACT_RATIO = 8;
+
+  private final Segment base;
+  // Positions of base still in the dataset, null when none was removed
+  private final BitSet live;
+  // Schools added or updated by deltas, null when there are none
+  private final Segment overlay;
+  private final List<School> schools;
+  private final FileTime lastModified;
+  private final long size;
+  private final long checksum;
+  private final long version;
+
+  public SchoolsDataset(List<School> schools, FileTime lastModified, long size, long checksum) {
+    this(schools, Coordinates.of(schools), lastModified, size, checksum);
+  }
+
+  public SchoolsDataset(
+      List<School> schools,
+      Coordinates coordinates,
+      FileTime lastModified,
+      long size,
+      long checksum) {
+    this(new Segment(Collections.unmodifiableList(schools), coordinates), null, null,
+        lastModified, size, checksum, VERSIONS.incrementAndGet());
+  }
+
+  private SchoolsDataset(
+      Segment base,
+      BitSet live,
+      Segment overlay,
+      FileTime lastModified,
+      long size,
+      long checksum,
+      long version) {
+    this.base = base;
+    this.live = live;
+    this.overlay = overlay;
+    this.schools =
+        overlay == null ? base.schools : new Concatenation(base.schools, overlay.schools);
+    this.lastModified = lastModified;
+    this.size = size;
+    this.checksum = checksum;
+    this.version = version;
+  }
+
+  /**
+   * Every school a search can return, indexed by the positions of its rankings. Schools removed
+   * by a delta keep their position and are never returned.
+   *
+   * @return List<School>
+   */
+  public List<School> getSchools() {
+    return schools;
+  }
+
+  /**
+   * Coordinates of the schools read from disk.
+   *
+   * @return Coordinates
+   */
+  public Coordinates getCoordinates() {
+    return base.coordinates;
+  }
+
+  /**
+   * Spatial index of the schools read from disk.
+   *
+   * @return KdTree
+   */
+  public KdTree getIndex() {
+    return base.index;
+  }
+
+  /**
+   * Bitmaps of the attribute values of the schools read from disk, built on first use.
+   *
+   * @return AttributeIndex
+   */
+  public AttributeIndex getAttributes() {
+    return base.attributes();
+  }
+
+  public FileTime getLastModified() {
+    return lastModified;
+  }
+
+  public long getSize() {
+    return size;
+  }
+
+  public long getChecksum() {
+    return checksum;
+  }
+
+  /**
+   * Number identifying the contents of this snapshot. Snapshots loaded separately or patched by a
+   * delta have different versions, a snapshot restamped after its file was touched keeps its
+   * version.
+   *
+   * @return long
+   */
+  public long getVersion() {
+    return version;
+  }
+
+  /**
+   * Find the k schools nearest to a point of origin among those a filter accepts. Unfiltered
+   * searches of a snapshot without deltas are scanned in parallel when the parallel scan accepts
+   * the dataset, every other search uses the spatial indexes.
+   *
+   * @param latitude Latitude point of origin
+   * @param longitude Longitude point of origin
+   * @param k Number of schools to return
+   * @param filter Filter
+   * @param parallelScan Parallel scan
+   * @return Ranking Positions in {@link #getSchools()} with their distance in miles
+   */
+  public Ranking nearest(
+      double latitude, double longitude, int k, SchoolFilter filter, ParallelScan parallelScan) {
+    return nearest(latitude, longitude, k, filter, null, parallelScan);
+  }
+
+  /**
+   * Find the k schools nearest to a point of origin among those a filter accepts, past the
+   * schools of previous pages. Searches resuming after a school always use the spatial indexes.
+   *
+   * @param latitude Latitude point of origin
+   * @param longitude Longitude point of origin
+   * @param k Number of schools to return
+   * @param filter Filter
+   * @param after Place the search resumes after, positions in {@link #getSchools()}, or null to
+   *     start from the point of origin
+   * @param parallelScan Parallel scan
+   * @return Ranking Positions in {@link #getSchools()} with their distance in miles
+   */
+  public Ranking nearest(
+      double latitude,
+      double longitude,
+      int k,
+      SchoolFilter filter,
+      SearchAfter after,
+      ParallelScan parallelScan) {
+    if (live == null && overlay == null && filter.isEmpty() && after == null
+        && parallelScan.accepts(base.coordinates)) {
+      return parallelScan.nearest(base.coordinates, latitude, longitude, k);
+    }
+    Ranking ranking = base.nearest(latitude, longitude, k, filter, live, after);
+    if (overlay != null) {
+      int start = base.schools.size();
+      SearchAfter overlayAfter = after == null ? null : after.relativeTo(start);
+      Ranking changed =
+          overlay.nearest(latitude, longitude, k, filter, null, overlayAfter).offset(start);
+      ranking = Ranking.merge(ranking, changed, k);
+    }
+    return ranking;
+  }
+
+  /**
+   * Find about the k schools nearest to a point of origin among those a filter accepts, probing a
+   * coarse grid instead of the spatial index, see {@link GridIndex}. The grid is built on the first
+   * approximate search.
+   *
+   * @param latitude Latitude point of origin
+   * @param longitude Longitude point of origin
+   * @param k Number of schools to return
+   * @param filter Filter
+   * @param distanceRatio Greater than 0 and at most 1, every school closer than this share of the
+   *     distance of the last one returned is returned, 1 returns the same schools as
+   *     {@link #nearest}
+   * @param parallelScan Parallel scan, used by exact searches
+   * @return Ranking Positions in {@link #getSchools()} with their distance in miles
+   */
+  public Ranking nearestApproximate(
+      double latitude,
+      double longitude,
+      int k,
+      SchoolFilter filter,
+      double distanceRatio,
+      ParallelScan parallelScan) {
+    if (distanceRatio >= 1) {
+      return nearest(latitude, longitude, k, filter, parallelScan);
+    }
+    Ranking ranking = base.nearestApproximate(latitude, longitude, k, filter, live, distanceRatio);
+    if (overlay != null) {
+      Ranking changed = overlay
+          .nearestApproximate(latitude, longitude, k, filter, null, distanceRatio)
+          .offset(base.schools.size());
+      ranking = Ranking.merge(ranking, changed, k);
+    }
+    return ranking;
+  }
+
+  /**
+   * Returns a snapshot with a delta applied. The schools read from disk and their index are
+   * shared with this snapshot, only the changed schools are indexed again unless they have grown
+   * past a share of the dataset.
+   *
+   * @param delta Changes, a school both removed and added or updated is removed
+   * @return SchoolsDataset
+   */
+  public SchoolsDataset apply(SchoolsDelta delta) {
+    Set<String> removed = new HashSet<>();
+    for (School school : delta.getRemove()) {
+      removed.add(SchoolsDelta.identity(school));
+    }
+    // The last change of an identity wins
+    Map<String, School> upserts = new LinkedHashMap<>();
+    for (School school : delta.getAdd()) {
+      upserts.put(SchoolsDelta.identity(school), school);
+    }
+    for (School school : delta.getUpdate()) {
+      upserts.put(SchoolsDelta.identity(school), school);
+    }
+    Set<String> changed = new HashSet<>(removed);
+    changed.addAll(upserts.keySet());
+    if (changed.isEmpty()) {
+      return this;
+    }
+
+    BitSet remaining = live != null ? (BitSet) live.clone() : allOf(base.schools.size());
+    Map<String, List<Integer>> identities = base.identities();
+    for (String identity : changed) {
+      for (int position : identities.getOrDefault(identity, Collections.emptyList())) {
+        remaining.clear(position);
+      }
+    }
+    List<School> added = new ArrayList<>();
+    if (overlay != null) {
+      for (School school : overlay.schools) {
+        if (!changed.contains(SchoolsDelta.identity(school))) {
+          added.add(school);
+        }
+      }
+    }
+    for (Map.Entry<String, School> upsert : upserts.entrySet()) {
+      if (!removed.contains(upsert.getKey())) {
+        added.add(upsert.getValue());
+      }
+    }
+
+    int liveCount = remaining.cardinality();
+    if (added.size() > Math.max(MIN_OVERLAY_SIZE, liveCount / COMPACT_RATIO)) {
+      List<School> compacted = new ArrayList<>(liveCount + added.size());
+      for (int i = remaining.nextSetBit(0); i >= 0; i = remaining.nextSetBit(i + 1)) {
+        compacted.add(base.schools.get(i));
+      }
+      compacted.addAll(added);
+      return new SchoolsDataset(compacted, lastModified, size, checksum);
+    }
+    return new SchoolsDataset(
+        base,
+        liveCount == base.schools.size() ? null : remaining,
+        added.isEmpty()
+            ? null
+            : new Segment(Collections.unmodifiableList(added), Coordinates.of(added)),
+        lastModified,
+        size,
+        checksum,
+        VERSIONS.incrementAndGet());
+  }
+
+  /**
+   * Whether this snapshot was loaded from a file with the given modification time and size.
+   *
+   * @param lastModified File modification time
+   * @param size File size in bytes
+   * @return boolean
+   */
+  boolean isCurrent(FileTime lastModified, long size) {
+    return this.lastModified.equals(lastModified) && this.size == size;
+  }
+
+  /**
+   * Returns a snapshot sharing the same schools and index but stamped with new file attributes.
+   * Used when a file was touched without its contents changing.
+   *
+   * @param lastModified File modification time
+   * @param size File size in bytes
+   * @return SchoolsDataset
+   */
+  SchoolsDataset restamp(FileTime lastModified, long size) {
+    return new SchoolsDataset(base, live, overlay, lastModified, size, checksum, version);
+  }
+
+  private static BitSet allOf(int size) {
+    BitSet all = new BitSet(size);
+    all.set(0, size);
+    return all;
+  }
+
+  /**
+   * Schools indexed together, with the lookups built over them on first use.
+   */
+  private static final class Segment {
+    final List<School> schools;
+    final Coordinates coordinates;
+    final KdTree index;
+    // Built on the first filtered query, most invocations never need it
+    private volatile AttributeIndex attributes;
+    // Built on the first delta
+    private volatile Map<String, List<Integer>> identities;
+    // Built on the first approximate query
+    private volatile GridIndex grid;
+
+    Segment(List<School> schools, Coordinates coordinates) {
+      this.schools = schools;
+      this.coordinates = coordinates;
+      this.index = KdTree.build(coordinates);
+    }
+
+    AttributeIndex attributes() {
+      AttributeIndex result = attributes;
+      if (result == null) {
+        synchronized (this) {
+          result = attributes;
+          if (result == null) {
+            result = AttributeIndex.build(schools);
+            attributes = result;
+          }
+        }
+      }
+      return result;
+    }
+
+    GridIndex grid() {
+      GridIndex result = grid;
+      if (result == null) {
+        synchronized (this) {
+          result = grid;
+          if (result == null) {
+            result = GridIndex.build(coordinates);
+            grid = result;
+          }
+        }
+      }
+      return result;
+    }
+
+    Map<String, List<Integer>> identities() {
+      Map<String, List<Integer>> result = identities;
+      if (result == null) {
+        synchronized (this) {
+          result = identities;
+          if (result == null) {
+            result = new HashMap<>();
+            for (int i = 0; i < schools.size(); i++) {
+              String identity = SchoolsDelta.identity(schools.get(i));
+              result.computeIfAbsent(identity, key -> new ArrayList<>()).add(i);
+            }
+            identities = result;
+          }
+        }
+      }
+      return result;
+    }
+
+    Ranking nearest(
+        double latitude,
+        double longitude,
+        int k,
+        SchoolFilter filter,
+        BitSet live,
+        SearchAfter after) {
+      return index.nearest(latitude, longitude, k, filter, candidates(filter, live), after);
+    }
+
+    Ranking nearestApproximate(
+        double latitude,
+        double longitude,
+        int k,
+        SchoolFilter filter,
+        BitSet live,
+        double distanceRatio) {
+      return grid()
+          .nearest(latitude, longitude, k, distanceRatio, filter, candidates(filter, live));
+    }
+
+    private BitSet candidates(SchoolFilter filter, BitSet live) {
+      BitSet candidates = filter.hasAttributes() ? attributes().select(filter) : null;
+      if (live != null) {
+        if (candidates == null) {
+          candidates = live;
+        } else {
+          candidates.and(live);
+        }
+      }
+      return candidates;
+    }
+  }
+
+  /** The schools read from disk followed by the schools changed by deltas. */
+  private static final class Concatenation extends AbstractList<School> implements RandomAccess {
+    private final List<School> first;
+    private final List<School> second;
+
+    Concatenation(List<School> first, List<School> second) {
+      this.first = first;
+      this.second = second;
+    }
+
+    @Override
+    public School get(int index) {
+      return index < first.size() ? first.get(index) : second.get(index - first.size());
+    }
+
+    @Override
+    public int size() {
+      return first.size() + second.size();
+    }
+  }
+}
@@ -0,0 +1,77 @@
+package com.salesforce.functions.recipes.data;
+
+import com.google.gson.stream.JsonReader;
+import com.salesforce.functions.recipes.School;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Changes to apply on top of the schools file, read from a JSON document such as:
+ *
+ * <pre>
+ * {
+ *   "add": [{"name": "New School", "street": "1 Main St", "zip": "89101", ...}],
+ *   "update": [{"name": "Old School", "street": "2 Main St", "zip": "89101", ...}],
+ *   "remove": [{"name": "Closed School", "street": "3 Main St", "zip": "89101"}]
+ * }
+ * </pre>
+ *
+ * <p>Schools are identified by their name, street and zip code, see {@link #identity}. Added and
+ * updated schools replace every school with the same identity, removed schools only need the
+ * fields of their identity.
+ */
+public class SchoolsDelta {
+  private List<School> add;
+  private List<School> update;
+  private List<School> remove;
+
+  public SchoolsDelta() {}
+
+  public SchoolsDelta(List<School> add, List<School> update, List<School> remove) {
+    this.add = add;
+    this.update = update;
+    this.remove = remove;
+  }
+
+  /**
+   * Read a change file.
+   *
+   * @param path Change file
+   * @return SchoolsDelta
+   * @throws IOException if the file cannot be read
+   */
+  public static SchoolsDelta read(Path path) throws IOException {
+    try (Reader in = Files.newBufferedReader(path, StandardCharsets.UTF_8);
+        JsonReader reader = new JsonReader(in)) {
+      SchoolsDelta delta = SchoolsJson.GSON.fromJson(reader, SchoolsDelta.class);
+      return delta != null ? delta : new SchoolsDelta();
+    }
+  }
+
+  /**
+   * The identity of a school, the key the changes of a delta are matched by.
+   *
+   * @param school School
+   * @return String
+   */
+  public static String identity(School school) {
+    return school.getName() + '\n' + school.getStreet() + '\n' + school.getZip();
+  }
+
+  public List<School> getAdd() {
+    return add != null ? add : Collections.emptyList();
+  }
+
+  public List<School> getUpdate() {
+    return update != null ? update : Collections.emptyList();
+  }
+
+  public List<School> getRemove() {
+    return remove != null ? remove : Collections.emptyList();
+  }
+}
@@ -0,0 +1,21 @@
+package com.salesforce.functions.recipes.data;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.salesforce.functions.recipes.JsonResponse;
+import com.salesforce.functions.recipes.School;
+
+/**
+ * The Gson instance used to read and write schools. It is created once and shared, Gson is
+ * thread-safe, and binds the schools document through hand-written adapters instead of
+ * reflection. {@link com.salesforce.functions.recipes.FunctionOutput} carries its own serializer.
+ */
+public final class SchoolsJson {
+  public static final Gson GSON =
+      new GsonBuilder()
+          .registerTypeAdapter(JsonResponse.class, new JsonResponseTypeAdapter())
+          .registerTypeAdapter(School.class, new SchoolTypeAdapter())
+          .create();
+
+  private SchoolsJson() {}
+}
@@ -0,0 +1,297 @@
+package com.salesforce.functions.recipes.data;
+
+import com.google.gson.stream.JsonReader;
+import com.salesforce.functions.recipes.JsonResponse;
+import com.salesforce.functions.recipes.School;
+import com.salesforce.functions.recipes.utils.Environment;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Process-wide holder of the schools dataset. The file is parsed once on first use and kept in
+ * memory for the lifetime of the function process. Each call to {@link #get()} checks the file's
+ * modification time and size; when they change the checksum is compared and, if the contents
+ * differ, the file is loaded again and the new snapshot is swapped in atomically. Invocations
+ * already holding the previous snapshot keep using it until they finish.
+ *
+ * <p>When a binary copy written from the same JSON file exists it is memory-mapped instead of
+ * parsing the JSON, see {@link SchoolsBinaryFormat}. The copy records the size, modification time
+ * and checksum of the JSON file; the JSON file is only read for its checksum when the size matches
+ * but the modification time does not.
+ *
+ * <p>Changes to the dataset can be published in a change file next to the JSON file, see {@link
+ * SchoolsDelta}. The change file is checked the same way; when it changes it is applied again to
+ * the snapshot of the JSON file kept in memory, without parsing the JSON file or rebuilding its
+ * index. Change files should be replaced atomically, for example by moving a complete file in
+ * place.
+ */
+public class SchoolsRepository {
+  private static final Logger LOGGER = LoggerFactory.getLogger(SchoolsRepository.class);
+
+  // Local Schools Database API by Code.org
+  // License: CC BY-NC-SA 4.0
+  // Url: https://code.org/learn/find-school/json
+  public static final Path DEFAULT_PATH = Paths.get("data/schools.json");
+  public static final Path DEFAULT_BINARY_PATH = binaryPathFor(DEFAULT_PATH);
+  public static final Path DEFAULT_DELTA_PATH = deltaPathFor(DEFAULT_PATH);
+
+  // CRC32 values are never negative
+  private static final long NO_CHECKSUM = -1;
+
+  private final Path path;
+  private final Path binaryPath;
+  private final Path deltaPath;
+  private final boolean writeBinary;
+  private volatile Loaded current;
+
+  public SchoolsRepository(Path path) {
+    this(path, binaryPathFor(path), false);
+  }
+
+  /**
+   * Create a repository that prefers a binary copy of the JSON file when one matches it.
+   *
+   * @param path Schools JSON file
+   * @param binaryPath Binary copy of the JSON file, see {@link SchoolsBinaryFormat}
+   * @param writeBinary Whether to write the binary copy after parsing the JSON file
+   */
+  public SchoolsRepository(Path path, Path binaryPath, boolean writeBinary) {
+    this(path, binaryPath, deltaPathFor(path), writeBinary);
+  }
+
+  /**
+   * Create a repository reading changes from the given change file.
+   *
+   * @param path Schools JSON file
+   * @param binaryPath Binary copy of the JSON file, see {@link SchoolsBinaryFormat}
+   * @param deltaPath Change file applied on top of the JSON file when it exists, see {@link
+   *     SchoolsDelta}
+   * @param writeBinary Whether to write the binary copy after parsing the JSON file
+   */
+  public SchoolsRepository(Path path, Path binaryPath, Path deltaPath, boolean writeBinary) {
+    this.path = path;
+    this.binaryPath = binaryPath;
+    this.deltaPath = deltaPath;
+    this.writeBinary = writeBinary;
+  }
+
+  /**
+   * The repository shared by every invocation in this process, created on first use.
+   *
+   * @return SchoolsRepository
+   */
+  public static SchoolsRepository getDefault() {
+    return DefaultHolder.INSTANCE;
+  }
+
+  public Path getPath() {
+    return path;
+  }
+
+  /**
+   * Get the current snapshot of the dataset, loading or reloading it from disk when needed.
+   *
+   * @return SchoolsDataset
+   * @throws IOException if the file cannot be read
+   */
+  public SchoolsDataset get() throws IOException {
+    BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+    BasicFileAttributes delta = deltaAttributes();
+    Loaded loaded = current;
+    if (loaded != null && loaded.isCurrent(attributes, delta)) {
+      return loaded.dataset;
+    }
+    return reload();
+  }
+
+  private synchronized SchoolsDataset reload() throws IOException {
+    // Another invocation may have reloaded the files while this one was waiting for the lock
+    BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+    BasicFileAttributes delta = deltaAttributes();
+    Loaded loaded = current;
+    if (loaded != null && loaded.isCurrent(attributes, delta)) {
+      return loaded.dataset;
+    }
+
+    SchoolsDataset base = load(loaded != null ? loaded.base : null, attributes);
+    SchoolsDataset dataset = base;
+    if (delta != null) {
+      long start = System.nanoTime();
+      dataset = base.apply(SchoolsDelta.read(deltaPath));
+      LOGGER.info("Applied changes from {} in {} ms", deltaPath,
+          (System.nanoTime() - start) / 1_000_000);
+    }
+    current = new Loaded(base, dataset, delta);
+    return dataset;
+  }
+
+  private SchoolsDataset load(SchoolsDataset previous, BasicFileAttributes attributes)
+      throws IOException {
+    // Only the change file changed, keep the snapshot of the JSON file
+    if (previous != null && previous.isCurrent(attributes.lastModifiedTime(), attributes.size())) {
+      return previous;
+    }
+
+    // The file was touched but its contents may be the same, avoid loading it again
+    long checksum = NO_CHECKSUM;
+    if (previous != null && previous.getSize() == attributes.size()) {
+      checksum = checksum();
+      if (previous.getChecksum() == checksum) {
+        return previous.restamp(attributes.lastModifiedTime(), attributes.size());
+      }
+    }
+
+    long start = System.nanoTime();
+    Path source = binaryPath;
+    SchoolsDataset dataset;
+    SchoolsBinaryFormat.Mapped mapped = openBinary(attributes.size());
+    // A copy written from a file of the same size and modification time is trusted as is, the
+    // JSON file is only read to compare checksums when it was touched or replaced since
+    if (mapped != null && mapped.sourceModified != attributes.lastModifiedTime().toMillis()) {
+      if (checksum == NO_CHECKSUM) {
+        checksum = checksum();
+      }
+      if (mapped.sourceChecksum != checksum) {
+        mapped = null;
+      }
+    }
+    if (mapped != null) {
+      dataset = new SchoolsDataset(mapped.schools(), mapped.coordinates(),
+          attributes.lastModifiedTime(), attributes.size(), mapped.sourceChecksum);
+    } else {
+      // No valid binary file matches the JSON file, fall back to parsing it and take its checksum
+      // in the same pass
+      source = path;
+      CRC32 crc = new CRC32();
+      List<School> schools;
+      try (InputStream in =
+          new CheckedInputStream(new BufferedInputStream(Files.newInputStream(path)), crc)) {
+        schools = parse(in);
+      }
+      checksum = crc.getValue();
+      dataset = new SchoolsDataset(schools, attributes.lastModifiedTime(), attributes.size(),
+          checksum);
+      if (writeBinary) {
+        writeBinary(schools, attributes.size(), attributes.lastModifiedTime().toMillis(),
+            checksum);
+      }
+    }
+    LOGGER.info("Loaded {} schools from {} in {} ms", dataset.getSchools().size(), source,
+        (System.nanoTime() - start) / 1_000_000);
+    return dataset;
+  }
+
+  private SchoolsBinaryFormat.Mapped openBinary(long sourceSize) {
+    try {
+      return SchoolsBinaryFormat.open(binaryPath, sourceSize);
+    } catch (IOException e) {
+      // The binary file is only a copy of the JSON file, from an older version or corrupt
+      LOGGER.warn("Ignoring binary schools dataset {}", binaryPath, e);
+      return null;
+    }
+  }
+
+  private BasicFileAttributes deltaAttributes() throws IOException {
+    try {
+      return Files.readAttributes(deltaPath, BasicFileAttributes.class);
+    } catch (NoSuchFileException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Parse a schools JSON document.
+   *
+   * @param in JSON document, read to the end
+   * @return List<School>
+   * @throws IOException if the document cannot be read
+   */
+  static List<School> parse(InputStream in) throws IOException {
+    try (JsonReader reader = new JsonReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+      JsonResponse response = SchoolsJson.GSON.fromJson(reader, JsonResponse.class);
+      // Drain anything left after the JSON document so a checksum of the stream covers all of it
+      in.transferTo(OutputStream.nullOutputStream());
+      return response != null && response.getSchools() != null
+          ? response.getSchools()
+          : new ArrayList<>();
+    }
+  }
+
+  private void writeBinary(
+      List<School> schools, long sourceSize, long sourceModified, long sourceChecksum) {
+    try {
+      SchoolsBinaryFormat.write(binaryPath, schools, sourceSize, sourceModified, sourceChecksum);
+      LOGGER.info("Wrote binary schools dataset to {}", binaryPath);
+    } catch (IOException e) {
+      // The function keeps working from the JSON file, only the next cold start is slower
+      LOGGER.warn("Could not write binary schools dataset to {}", binaryPath, e);
+    }
+  }
+
+  private static Path binaryPathFor(Path path) {
+    String name = path.getFileName().toString().replaceFirst("(\\.json)?$", ".bin");
+    return path.resolveSibling(name);
+  }
+
+  private static Path deltaPathFor(Path path) {
+    String name = path.getFileName().toString().replaceFirst("(\\.json)?$", ".delta.json");
+    return path.resolveSibling(name);
+  }
+
+  private long checksum() throws IOException {
+    CRC32 crc = new CRC32();
+    try (InputStream in = new CheckedInputStream(Files.newInputStream(path), crc)) {
+      in.transferTo(OutputStream.nullOutputStream());
+    }
+    return crc.getValue();
+  }
+
+  /**
+   * The snapshot of the JSON file, the snapshot served with the change file applied to it, and the
+   * attributes of the change file when it was applied.
+   */
+  private static final class Loaded {
+    final SchoolsDataset base;
+    final SchoolsDataset dataset;
+    final FileTime deltaModified;
+    final long deltaSize;
+
+    Loaded(SchoolsDataset base, SchoolsDataset dataset, BasicFileAttributes delta) {
+      this.base = base;
+      this.dataset = dataset;
+      this.deltaModified = delta != null ? delta.lastModifiedTime() : null;
+      this.deltaSize = delta != null ? delta.size() : -1;
+    }
+
+    boolean isCurrent(BasicFileAttributes attributes, BasicFileAttributes delta) {
+      if (!base.isCurrent(attributes.lastModifiedTime(), attributes.size())) {
+        return false;
+      }
+      return delta == null
+          ? deltaModified == null
+          : delta.lastModifiedTime().equals(deltaModified) && delta.size() == deltaSize;
+    }
+  }
+
+  private static class DefaultHolder {
+    static final SchoolsRepository INSTANCE =
+        new SchoolsRepository(
+            DEFAULT_PATH, DEFAULT_BINARY_PATH, Environment.isBinaryCacheEnabled());
+  }
+}
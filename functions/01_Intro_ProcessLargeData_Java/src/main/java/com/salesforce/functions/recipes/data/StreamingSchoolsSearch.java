@@ -0,0 +1,123 @@
+package com.salesforce.functions.recipes.data;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.salesforce.functions.recipes.NearbySchool;
+import com.salesforce.functions.recipes.Origin;
+import com.salesforce.functions.recipes.School;
+import com.salesforce.functions.recipes.search.Distances;
+import com.salesforce.functions.recipes.search.Ranking;
+import com.salesforce.functions.recipes.search.Region;
+import com.salesforce.functions.recipes.search.SchoolFilter;
+import com.salesforce.functions.recipes.search.TopK;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds the nearest schools while reading the schools file, without loading the dataset into
+ * memory. The "schools" array is walked one element at a time and only the nearest schools found so
+ * far are kept, so memory use depends on the number of results rather than the size of the file.
+ */
+public final class StreamingSchoolsSearch {
+  private static final SchoolTypeAdapter SCHOOLS = new SchoolTypeAdapter();
+
+  private StreamingSchoolsSearch() {}
+
+  /**
+   * Find the k schools nearest to a point of origin.
+   *
+   * @param path Schools file
+   * @param latitude Latitude point of origin
+   * @param longitude Longitude point of origin
+   * @param k Number of schools to return
+   * @return List<NearbySchool> Nearest schools ordered by distance
+   * @throws IOException if the file cannot be read
+   */
+  public static List<NearbySchool> nearest(Path path, double latitude, double longitude, int k)
+      throws IOException {
+    return nearest(path, List.of(new Origin(latitude, longitude, k)), SchoolFilter.NONE).get(0);
+  }
+
+  /**
+   * Find the nearest schools to several points of origin in a single pass over the file.
+   *
+   * @param path Schools file
+   * @param origins Points of origin and the number of schools to return for each
+   * @param filter Filter applied to every origin
+   * @return List<List<NearbySchool>> Nearest schools of each origin ordered by distance
+   * @throws IOException if the file cannot be read
+   */
+  public static List<List<NearbySchool>> nearest(
+      Path path, List<Origin> origins, SchoolFilter filter) throws IOException {
+    // Rank by squared chord length like the in-memory search, so both modes agree on ties
+    int count = origins.size();
+    Region[] regions = new Region[count];
+    TopK[] topKs = new TopK[count];
+    List<Map<Integer, School>> candidates = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      Origin origin = origins.get(i);
+      regions[i] = Region.around(origin.getLatitude(), origin.getLongitude(), filter);
+      topKs[i] = new TopK(origin.getLength());
+      candidates.add(new HashMap<>());
+    }
+
+    try (JsonReader reader = new JsonReader(Files.newBufferedReader(path, StandardCharsets.UTF_8))) {
+      reader.beginObject();
+      while (reader.hasNext()) {
+        if (!"schools".equals(reader.nextName()) || reader.peek() != JsonToken.BEGIN_ARRAY) {
+          reader.skipValue();
+          continue;
+        }
+        reader.beginArray();
+        for (int position = 0; reader.hasNext(); position++) {
+          // Each school is parsed once and offered to every origin
+          School school = SCHOOLS.read(reader);
+          if (!filter.matches(school)) {
+            continue;
+          }
+          double[] point = Distances.unitVector(school.getLatitude(), school.getLongitude());
+          for (int i = 0; i < count; i++) {
+            if (!regions[i].contains(school.getLatitude(), school.getLongitude())) {
+              continue;
+            }
+            double squaredChord = Distances.squaredChord(regions[i].origin(), point);
+            if (!regions[i].reaches(squaredChord)) {
+              continue;
+            }
+            int evicted = topKs[i].offer(position, squaredChord);
+            if (evicted != position) {
+              candidates.get(i).put(position, school);
+              candidates.get(i).remove(evicted);
+            }
+          }
+        }
+        reader.endArray();
+      }
+      reader.endObject();
+    }
+
+    List<List<NearbySchool>> results = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      Origin origin = origins.get(i);
+      Ranking ranking = topKs[i].toRanking();
+      List<NearbySchool> schools = new ArrayList<>(ranking.size());
+      for (int rank = 0; rank < ranking.size(); rank++) {
+        School school = candidates.get(i).get(ranking.position(rank));
+        double distance = Distances.miles(origin.getLatitude(), origin.getLongitude(),
+            school.getLatitude(), school.getLongitude());
+        if (distance > filter.getRadius()) {
+          break;
+        }
+        schools.add(new NearbySchool(school, distance));
+      }
+      results.add(schools);
+    }
+    return results;
+  }
+}
@@ -0,0 +1,49 @@
+package com.salesforce.functions.recipes.data;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Deduplicates values repeated across the schools of one dataset, so every school in the same
+ * state or with the same levels shares one String or one array instead of holding its own copy.
+ * A pool lives as long as the parse it is used for, values of a dataset that was replaced are not
+ * kept alive by it.
+ */
+final class StringPool {
+  private final Map<String, String> strings = new HashMap<>();
+  private final Map<List<String>, String[]> arrays = new HashMap<>();
+
+  /**
+   * The pooled copy of a string.
+   *
+   * @param value String, may be null
+   * @return String Equal string shared by every caller of the pool
+   */
+  String intern(String value) {
+    if (value == null) {
+      return null;
+    }
+    String pooled = strings.putIfAbsent(value, value);
+    return pooled != null ? pooled : value;
+  }
+
+  /**
+   * The pooled copy of an array of strings. Arrays with equal contents are shared, so they must
+   * not be modified.
+   *
+   * @param values Strings, may be null
+   * @return String[] Equal array shared by every caller of the pool
+   */
+  String[] intern(String[] values) {
+    if (values == null) {
+      return null;
+    }
+    for (int i = 0; i < values.length; i++) {
+      values[i] = intern(values[i]);
+    }
+    String[] pooled = arrays.putIfAbsent(Arrays.asList(values), values);
+    return pooled != null ? pooled : values;
+  }
+}
@@ -0,0 +1,86 @@
+package com.salesforce.functions.recipes.search;
+
+import com.salesforce.functions.recipes.School;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * One bitmap of school positions per value of the state, levels and format attributes, so a
+ * filtered search starts from the schools matching the filter instead of testing every school.
+ */
+public final class AttributeIndex {
+  private final int size;
+  private final Map<String, BitSet> states = new HashMap<>();
+  private final Map<String, BitSet> levels = new HashMap<>();
+  private final Map<String, BitSet> formats = new HashMap<>();
+
+  private AttributeIndex(int size) {
+    this.size = size;
+  }
+
+  /**
+   * Build the bitmaps of a list of schools.
+   *
+   * @param schools Schools, bit positions match positions in the list
+   * @return AttributeIndex
+   */
+  public static AttributeIndex build(List<School> schools) {
+    AttributeIndex index = new AttributeIndex(schools.size());
+    for (int position = 0; position < schools.size(); position++) {
+      School school = schools.get(position);
+      add(index.states, school.getState(), position);
+      add(index.formats, school.getFormat(), position);
+      if (school.getLevels() != null) {
+        for (String level : school.getLevels()) {
+          add(index.levels, level, position);
+        }
+      }
+    }
+    return index;
+  }
+
+  /**
+   * Positions of the schools matching the attribute filters.
+   *
+   * @param filter Filter
+   * @return BitSet Matching positions, or null if the filter has no attribute filters
+   */
+  public BitSet select(SchoolFilter filter) {
+    BitSet selected = null;
+    selected = intersect(selected, states, filter.getStates());
+    selected = intersect(selected, levels, filter.getLevels());
+    selected = intersect(selected, formats, filter.getFormats());
+    return selected;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  private static void add(Map<String, BitSet> bitmaps, String value, int position) {
+    if (value != null) {
+      bitmaps.computeIfAbsent(SchoolFilter.normalize(value), key -> new BitSet()).set(position);
+    }
+  }
+
+  private static BitSet intersect(
+      BitSet selected, Map<String, BitSet> bitmaps, Set<String> values) {
+    if (values.isEmpty()) {
+      return selected;
+    }
+    BitSet union = new BitSet();
+    for (String value : values) {
+      BitSet bitmap = bitmaps.get(value);
+      if (bitmap != null) {
+        union.or(bitmap);
+      }
+    }
+    if (selected != null) {
+      union.and(selected);
+    }
+    return union;
+  }
+}
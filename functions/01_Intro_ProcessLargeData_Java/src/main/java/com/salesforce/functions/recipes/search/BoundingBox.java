@@ -0,0 +1,78 @@
+package com.salesforce.functions.recipes.search;
+
+import java.util.Objects;
+
+/**
+ * A latitude and longitude range. A box whose west edge is greater than its east edge crosses the
+ * antimeridian.
+ */
+public class BoundingBox {
+  private double south;
+  private double west;
+  private double north;
+  private double east;
+
+  public BoundingBox() {}
+
+  public BoundingBox(double south, double west, double north, double east) {
+    this.south = south;
+    this.west = west;
+    this.north = north;
+    this.east = east;
+  }
+
+  public double getSouth() {
+    return south;
+  }
+
+  public double getWest() {
+    return west;
+  }
+
+  public double getNorth() {
+    return north;
+  }
+
+  public double getEast() {
+    return east;
+  }
+
+  /**
+   * Whether a geographic position is inside the box, edges included.
+   *
+   * @param latitude Latitude
+   * @param longitude Longitude
+   * @return boolean
+   */
+  public boolean contains(double latitude, double longitude) {
+    if (latitude < south || latitude > north) {
+      return false;
+    }
+    return west <= east
+        ? longitude >= west && longitude <= east
+        : longitude >= west || longitude <= east;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (!(o instanceof BoundingBox)) {
+      return false;
+    }
+    BoundingBox other = (BoundingBox) o;
+    return Double.compare(south, other.south) == 0
+        && Double.compare(west, other.west) == 0
+        && Double.compare(north, other.north) == 0
+        && Double.compare(east, other.east) == 0;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(south, west, north, east);
+  }
+
+  @Override
+  public String toString() {
+    return "BoundingBox [south=" + south + ", west=" + west + ", north=" + north + ", east=" + east
+        + "]";
+  }
+}
@@ -0,0 +1,86 @@
+package com.salesforce.functions.recipes.search;
+
+import com.salesforce.functions.recipes.School;
+import java.util.List;
+
+/**
+ * Columnar copy of the schools' latitude and longitude. The search kernels only need the position
+ * of each school, keeping it in contiguous primitive arrays lets them scan the dataset without
+ * touching the {@link School} records, which are only read for the results returned.
+ *
+ * <p>Each position is also stored as a point of the unit sphere, computed once when the columns
+ * are built. The straight-line (chord) distance between two such points grows with their
+ * great-circle distance, so the kernels rank schools by squared chord length with a few
+ * multiplications and no trigonometry, see {@link Distances}.
+ */
+public final class Coordinates {
+  final double[] latitudes;
+  final double[] longitudes;
+  final double[] x;
+  final double[] y;
+  final double[] z;
+
+  public Coordinates(double[] latitudes, double[] longitudes) {
+    if (latitudes.length != longitudes.length) {
+      throw new IllegalArgumentException("latitudes and longitudes must have the same length");
+    }
+    this.latitudes = latitudes;
+    this.longitudes = longitudes;
+    int n = latitudes.length;
+    this.x = new double[n];
+    this.y = new double[n];
+    this.z = new double[n];
+    for (int i = 0; i < n; i++) {
+      double latitude = Math.toRadians(latitudes[i]);
+      double longitude = Math.toRadians(longitudes[i]);
+      double cosLatitude = Math.cos(latitude);
+      x[i] = cosLatitude * Math.cos(longitude);
+      y[i] = cosLatitude * Math.sin(longitude);
+      z[i] = Math.sin(latitude);
+    }
+  }
+
+  /**
+   * Extract the coordinates of a list of schools.
+   *
+   * @param schools Schools, positions in the columns match positions in the list
+   * @return Coordinates
+   */
+  public static Coordinates of(List<School> schools) {
+    int n = schools.size();
+    double[] latitudes = new double[n];
+    double[] longitudes = new double[n];
+    for (int i = 0; i < n; i++) {
+      School school = schools.get(i);
+      latitudes[i] = school.getLatitude();
+      longitudes[i] = school.getLongitude();
+    }
+    return new Coordinates(latitudes, longitudes);
+  }
+
+  public int size() {
+    return latitudes.length;
+  }
+
+  public double latitude(int position) {
+    return latitudes[position];
+  }
+
+  public double longitude(int position) {
+    return longitudes[position];
+  }
+
+  /**
+   * Squared chord length between a school and a point of the unit sphere.
+   *
+   * @param position Position of the school
+   * @param origin Point of origin, see {@link Distances#unitVector}
+   * @return double
+   */
+  double squaredChord(int position, double[] origin) {
+    double dx = x[position] - origin[0];
+    double dy = y[position] - origin[1];
+    double dz = z[position] - origin[2];
+    return dx * dx + dy * dy + dz * dz;
+  }
+}
@@ -0,0 +1,100 @@
+package com.salesforce.functions.recipes.search;
+
+/**
+ * Great-circle distances between geographic points, in miles, and the squared chord lengths the
+ * search kernels rank schools by.
+ */
+public final class Distances {
+  private Distances() {}
+
+  /**
+   * Calculate distance between two geographic points
+   *
+   * @param latitudeSt Latitude point of origin
+   * @param longitudeSt Longitude point of origin
+   * @param latitudeSch Latitude school
+   * @param longitudeSch Longitude school
+   * @return double Distance between point of origin and school
+   */
+  public static double miles(
+      double latitudeSt, double longitudeSt, double latitudeSch, double longitudeSch) {
+    if (latitudeSt == latitudeSch && longitudeSt == longitudeSch) {
+      return 0;
+    } else {
+      double radLatitudeSt = (Math.PI * latitudeSt) / 180;
+      double radLatitudeSch = (Math.PI * latitudeSch) / 180;
+      double theta = longitudeSt - longitudeSch;
+      double radTheta = (Math.PI * theta) / 180;
+      double dist =
+          Math.sin(radLatitudeSt) * Math.sin(radLatitudeSch)
+              + Math.cos(radLatitudeSt) * Math.cos(radLatitudeSch) * Math.cos(radTheta);
+      if (dist > 1) {
+        dist = 1;
+      }
+      dist = Math.acos(dist);
+      dist = (dist * 180) / Math.PI;
+      dist = dist * 60 * 1.1515;
+      return dist;
+    }
+  }
+
+  /**
+   * Point of the unit sphere at a geographic position.
+   *
+   * @param latitude Latitude
+   * @param longitude Longitude
+   * @return double[] x, y and z coordinates
+   */
+  public static double[] unitVector(double latitude, double longitude) {
+    double radLatitude = Math.toRadians(latitude);
+    double radLongitude = Math.toRadians(longitude);
+    double cosLatitude = Math.cos(radLatitude);
+    return new double[] {
+      cosLatitude * Math.cos(radLongitude),
+      cosLatitude * Math.sin(radLongitude),
+      Math.sin(radLatitude)
+    };
+  }
+
+  /**
+   * Squared chord length between two points of the unit sphere, ordered the same way as their
+   * great-circle distance.
+   *
+   * @param a Point of the unit sphere
+   * @param b Point of the unit sphere
+   * @return double
+   */
+  public static double squaredChord(double[] a, double[] b) {
+    double dx = a[0] - b[0];
+    double dy = a[1] - b[1];
+    double dz = a[2] - b[2];
+    return dx * dx + dy * dy + dz * dz;
+  }
+
+  /**
+   * Replace the squared chord lengths of a ranking by distances in miles. Only the schools being
+   * returned go through the trigonometric formula, the values are the same as {@link #miles}.
+   *
+   * @param ranking Ranking by squared chord length
+   * @param coordinates Coordinates of the ranked schools
+   * @param latitude Latitude point of origin
+   * @param longitude Longitude point of origin
+   * @return Ranking Same positions with their distance in miles
+   */
+  public static Ranking toMiles(
+      Ranking ranking, Coordinates coordinates, double latitude, double longitude) {
+    int[] positions = new int[ranking.size()];
+    double[] miles = new double[ranking.size()];
+    for (int rank = 0; rank < ranking.size(); rank++) {
+      int position = ranking.position(rank);
+      positions[rank] = position;
+      miles[rank] =
+          miles(
+              latitude,
+              longitude,
+              coordinates.latitudes[position],
+              coordinates.longitudes[position]);
+    }
+    return new Ranking(positions, miles);
+  }
+}
@@ -0,0 +1,208 @@
+package com.salesforce.functions.recipes.search;
+
+import java.util.BitSet;
+
+/**
+ * A coarse grid over the schools' latitude and longitude for approximate searches. Schools are
+ * bucketed into square cells sized so each holds a few schools on average, and a search probes
+ * rings of cells around the point of origin, nearest first.
+ *
+ * <p>Once k schools are found, the search keeps probing rings only while they may hold a school
+ * closer than {@code distanceRatio} times the distance of the k-th school found so far. Every
+ * school closer than that ratio of the distance of the last school returned is therefore returned,
+ * and that school is at most {@code 1 / distanceRatio} times as far as the exact k-th nearest one.
+ * A ratio of 1 probes every ring that may improve the result and is exact. The grid does not wrap
+ * around the antimeridian or the poles, the bound does not hold for rings across them.
+ */
+public final class GridIndex {
+  // Average number of schools per cell over the bounding box of the dataset
+  private static final int SCHOOLS_PER_CELL = 16;
+  private static final double MILES_PER_DEGREE = 60 * 1.1515;
+
+  private final Coordinates schools;
+  private final double south;
+  private final double west;
+  private final double cellDegrees;
+  private final int rows;
+  private final int columns;
+  // Schools of cell c are positions[cellStart[c]] to positions[cellStart[c + 1] - 1]
+  private final int[] cellStart;
+  private final int[] positions;
+
+  private GridIndex(Coordinates schools, double south, double west, double cellDegrees, int rows,
+      int columns) {
+    this.schools = schools;
+    this.south = south;
+    this.west = west;
+    this.cellDegrees = cellDegrees;
+    this.rows = rows;
+    this.columns = columns;
+    this.cellStart = new int[rows * columns + 1];
+    this.positions = new int[schools.size()];
+  }
+
+  /**
+   * Build a grid over the given schools.
+   *
+   * @param schools Coordinates of the schools to index, the grid refers to them by position
+   * @return GridIndex
+   */
+  public static GridIndex build(Coordinates schools) {
+    int n = schools.size();
+    double south = 90;
+    double north = -90;
+    double west = 180;
+    double east = -180;
+    for (int i = 0; i < n; i++) {
+      south = Math.min(south, schools.latitudes[i]);
+      north = Math.max(north, schools.latitudes[i]);
+      west = Math.min(west, schools.longitudes[i]);
+      east = Math.max(east, schools.longitudes[i]);
+    }
+    if (n == 0) {
+      return new GridIndex(schools, 0, 0, 1, 1, 1);
+    }
+    double height = north - south;
+    double width = east - west;
+    long maxCells = 2L * n / SCHOOLS_PER_CELL + 16;
+    double cellDegrees = Math.sqrt(height * width * SCHOOLS_PER_CELL / n);
+    if (!(cellDegrees > 0)) {
+      cellDegrees = Math.max(Math.max(height, width), 1e-6);
+    }
+    // Schools spread along a line would get a very long grid of very small cells
+    while ((long) (height / cellDegrees + 1) * (long) (width / cellDegrees + 1) > maxCells) {
+      cellDegrees *= 2;
+    }
+    GridIndex grid = new GridIndex(schools, south, west, cellDegrees,
+        (int) (height / cellDegrees) + 1, (int) (width / cellDegrees) + 1);
+    grid.fill();
+    return grid;
+  }
+
+  private void fill() {
+    // Counting sort of the positions by cell
+    int[] cells = new int[positions.length];
+    for (int i = 0; i < positions.length; i++) {
+      cells[i] = row(schools.latitudes[i]) * columns + column(schools.longitudes[i]);
+      cellStart[cells[i] + 1]++;
+    }
+    for (int c = 0; c < rows * columns; c++) {
+      cellStart[c + 1] += cellStart[c];
+    }
+    int[] next = new int[rows * columns];
+    for (int i = 0; i < positions.length; i++) {
+      positions[cellStart[cells[i]] + next[cells[i]]++] = i;
+    }
+  }
+
+  /**
+   * Find about the k schools nearest to a point of origin among those a filter accepts.
+   *
+   * @param latitude Latitude point of origin
+   * @param longitude Longitude point of origin
+   * @param k Number of schools to return
+   * @param distanceRatio Greater than 0 and at most 1, the search stops probing cells further than
+   *     this share of the distance of the k-th school found so far
+   * @param filter Filter
+   * @param candidates Schools the search may return, for example those matching the attribute
+   *     filters, see {@link AttributeIndex}, or null for every school
+   * @return Ranking Positions of the schools found with their distance in miles
+   */
+  public Ranking nearest(
+      double latitude,
+      double longitude,
+      int k,
+      double distanceRatio,
+      SchoolFilter filter,
+      BitSet candidates) {
+    int size = candidates == null ? positions.length : candidates.cardinality();
+    if (k <= 0 || size == 0) {
+      return Ranking.EMPTY;
+    }
+    Region region = Region.around(latitude, longitude, filter);
+    TopK topK = new TopK(Math.min(k, size));
+    // The cell of the point of origin, which may be outside the grid
+    int originRow = (int) Math.floor((latitude - south) / cellDegrees);
+    int originColumn = (int) Math.floor((longitude - west) / cellDegrees);
+    int lastRing = Math.max(
+        Math.max(Math.abs(originRow), Math.abs(rows - 1 - originRow)),
+        Math.max(Math.abs(originColumn), Math.abs(columns - 1 - originColumn)));
+    double stopMiles = filter.getRadius();
+    for (int ring = 0; ring <= lastRing; ring++) {
+      if (ringMiles(ring, latitude) > stopMiles) {
+        break;
+      }
+      probeRing(originRow, originColumn, ring, region, candidates, topK);
+      if (topK.isFull()) {
+        stopMiles = Math.min(stopMiles, distanceRatio * chordMiles(topK.worstKey()));
+      }
+    }
+    Ranking ranking = Distances.toMiles(topK.toRanking(), schools, latitude, longitude);
+    return filter.hasRadius() ? ranking.within(filter.getRadius()) : ranking;
+  }
+
+  private void probeRing(
+      int originRow, int originColumn, int ring, Region region, BitSet candidates, TopK topK) {
+    int firstRow = Math.max(originRow - ring, 0);
+    int lastRow = Math.min(originRow + ring, rows - 1);
+    int firstColumn = Math.max(originColumn - ring, 0);
+    int lastColumn = Math.min(originColumn + ring, columns - 1);
+    for (int row = firstRow; row <= lastRow; row++) {
+      if (row == originRow - ring || row == originRow + ring) {
+        for (int column = firstColumn; column <= lastColumn; column++) {
+          probeCell(row * columns + column, region, candidates, topK);
+        }
+      } else {
+        // Rows in between only have the two cells at the ends of the ring
+        if (originColumn - ring >= 0 && originColumn - ring < columns) {
+          probeCell(row * columns + originColumn - ring, region, candidates, topK);
+        }
+        if (originColumn + ring >= 0 && originColumn + ring < columns) {
+          probeCell(row * columns + originColumn + ring, region, candidates, topK);
+        }
+      }
+    }
+  }
+
+  private void probeCell(int cell, Region region, BitSet candidates, TopK topK) {
+    for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+      int position = positions[i];
+      if (candidates != null && !candidates.get(position)) {
+        continue;
+      }
+      if (!region.contains(schools.latitudes[position], schools.longitudes[position])) {
+        continue;
+      }
+      double squaredChord = schools.squaredChord(position, region.origin());
+      if (region.reaches(squaredChord)) {
+        topK.offer(position, squaredChord);
+      }
+    }
+  }
+
+  /**
+   * Lower bound of the distance from a point of origin to the cells of a ring: they are at least
+   * ring - 1 cells away along a meridian or a parallel, and parallels shrink away from the equator.
+   */
+  private double ringMiles(int ring, double latitude) {
+    if (ring <= 1) {
+      return 0;
+    }
+    double furthestLatitude = Math.min(Math.abs(latitude) + ring * cellDegrees, 90);
+    return (ring - 1) * cellDegrees * MILES_PER_DEGREE
+        * Math.cos(Math.toRadians(furthestLatitude));
+  }
+
+  private static double chordMiles(double squaredChord) {
+    double chord = Math.min(Math.sqrt(squaredChord), 2);
+    return Math.toDegrees(2 * Math.asin(chord / 2)) * MILES_PER_DEGREE;
+  }
+
+  private int row(double latitude) {
+    return Math.min((int) ((latitude - south) / cellDegrees), rows - 1);
+  }
+
+  private int column(double longitude) {
+    return Math.min((int) ((longitude - west) / cellDegrees), columns - 1);
+  }
+}
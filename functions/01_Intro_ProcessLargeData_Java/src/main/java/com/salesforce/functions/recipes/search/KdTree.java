@@ -0,0 +1,244 @@
+package com.salesforce.functions.recipes.search;
+
+import java.util.BitSet;
+
+/**
+ * A k-d tree over the schools' positions on the unit sphere. Straight-line distances between
+ * points of the sphere grow with their great-circle distance, so the tree can skip whole regions
+ * that are further from the point of origin than the current k-th nearest school. Results are the
+ * same as a {@link LinearScan} of every school.
+ *
+ * <p>The tree is stored in flat arrays: each range of {@code order} is split at its middle slot,
+ * which holds the node's school and split axis, and ranges of up to {@link #LEAF_SIZE} schools are
+ * scanned directly.
+ */
+public final class KdTree {
+  private static final int LEAF_SIZE = 16;
+  // Filters matching fewer than 1 / SPARSE_RATIO of the schools are answered by testing only the
+  // matching schools instead of walking the tree
+  static final int SPARSE_RATIO = 8;
+  // Rounding can make a school's computed chord length a hair shorter than its distance to the
+  // split plane, prune with a little slack so results never differ from a full scan
+  private static final double PRUNE_SLACK = 1e-12;
+
+  private final Coordinates schools;
+  private final double[][] coordinates;
+  private final int[] order;
+  private final byte[] axes;
+
+  private KdTree(Coordinates schools) {
+    this.schools = schools;
+    this.coordinates = new double[][] {schools.x, schools.y, schools.z};
+    this.order = new int[schools.size()];
+    this.axes = new byte[schools.size()];
+    for (int i = 0; i < order.length; i++) {
+      order[i] = i;
+    }
+  }
+
+  /**
+   * Build a tree over the given schools.
+   *
+   * @param schools Coordinates of the schools to index, the tree refers to them by position
+   * @return KdTree
+   */
+  public static KdTree build(Coordinates schools) {
+    KdTree tree = new KdTree(schools);
+    tree.split(0, schools.size());
+    return tree;
+  }
+
+  /**
+   * Find the k schools nearest to a point of origin.
+   *
+   * @param latitude Latitude point of origin
+   * @param longitude Longitude point of origin
+   * @param k Number of schools to return
+   * @return Ranking Positions of the nearest schools with their distance in miles
+   */
+  public Ranking nearest(double latitude, double longitude, int k) {
+    if (k <= 0 || order.length == 0) {
+      return Ranking.EMPTY;
+    }
+    double[] origin = Distances.unitVector(latitude, longitude);
+    TopK topK = new TopK(Math.min(k, order.length));
+    search(0, order.length, origin, topK, null, null);
+    return Distances.toMiles(topK.toRanking(), schools, latitude, longitude);
+  }
+
+  /**
+   * Find the k schools nearest to a point of origin among those a filter accepts.
+   *
+   * @param latitude Latitude point of origin
+   * @param longitude Longitude point of origin
+   * @param k Number of schools to return
+   * @param filter Filter
+   * @param candidates Schools the search may return, for example those matching the attribute
+   *     filters, see {@link AttributeIndex}, or null for every school
+   * @return Ranking Positions of the nearest schools with their distance in miles
+   */
+  public Ranking nearest(
+      double latitude, double longitude, int k, SchoolFilter filter, BitSet candidates) {
+    return nearest(latitude, longitude, k, filter, candidates, null);
+  }
+
+  /**
+   * Find the k schools nearest to a point of origin among those a filter accepts, past the
+   * schools of previous pages. Schools before the place the search resumes after are still
+   * visited, but never ranked.
+   *
+   * @param latitude Latitude point of origin
+   * @param longitude Longitude point of origin
+   * @param k Number of schools to return
+   * @param filter Filter
+   * @param candidates Schools the search may return, for example those matching the attribute
+   *     filters, see {@link AttributeIndex}, or null for every school
+   * @param after Place the search resumes after, or null to start from the point of origin
+   * @return Ranking Positions of the nearest schools with their distance in miles
+   */
+  public Ranking nearest(
+      double latitude,
+      double longitude,
+      int k,
+      SchoolFilter filter,
+      BitSet candidates,
+      SearchAfter after) {
+    if (filter.isEmpty() && candidates == null && after == null) {
+      return nearest(latitude, longitude, k);
+    }
+    int size = candidates == null ? order.length : candidates.cardinality();
+    if (k <= 0 || size == 0) {
+      return Ranking.EMPTY;
+    }
+    Region region = Region.around(latitude, longitude, filter, after);
+    TopK topK = new TopK(Math.min(k, size));
+    if (candidates != null && size <= order.length / SPARSE_RATIO) {
+      for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+        offer(i, region, topK);
+      }
+    } else {
+      search(0, order.length, region.origin(), topK, region, candidates);
+    }
+    Ranking ranking = Distances.toMiles(topK.toRanking(), schools, latitude, longitude);
+    return filter.hasRadius() ? ranking.within(filter.getRadius()) : ranking;
+  }
+
+  private void search(
+      int lo, int hi, double[] origin, TopK topK, Region region, BitSet candidates) {
+    if (hi - lo <= LEAF_SIZE) {
+      for (int i = lo; i < hi; i++) {
+        if (region == null) {
+          topK.offer(order[i], schools.squaredChord(order[i], origin));
+        } else if (candidates == null || candidates.get(order[i])) {
+          offer(order[i], region, topK);
+        }
+      }
+      return;
+    }
+    int mid = (lo + hi) >>> 1;
+    int axis = axes[mid];
+    double diff = origin[axis] - coordinates[axis][order[mid]];
+    if (region == null) {
+      topK.offer(order[mid], schools.squaredChord(order[mid], origin));
+    } else if (candidates == null || candidates.get(order[mid])) {
+      offer(order[mid], region, topK);
+    }
+
+    // Visit the side of the split holding the point of origin first, then the other side only if
+    // the split plane is closer than the k-th nearest school found so far
+    if (diff < 0) {
+      search(lo, mid, origin, topK, region, candidates);
+      if (reachable(diff, topK, region)) {
+        search(mid + 1, hi, origin, topK, region, candidates);
+      }
+    } else {
+      search(mid + 1, hi, origin, topK, region, candidates);
+      if (reachable(diff, topK, region)) {
+        search(lo, mid, origin, topK, region, candidates);
+      }
+    }
+  }
+
+  private void offer(int position, Region region, TopK topK) {
+    // Compare the school's latitude and longitude before computing its distance
+    if (!region.contains(schools.latitudes[position], schools.longitudes[position])) {
+      return;
+    }
+    double squaredChord = schools.squaredChord(position, region.origin());
+    if (region.reaches(squaredChord) && region.follows(squaredChord, position)) {
+      topK.offer(position, squaredChord);
+    }
+  }
+
+  private boolean reachable(double planeDistance, TopK topK, Region region) {
+    double squaredDistance = planeDistance * planeDistance;
+    if (region != null && squaredDistance > region.maxSquaredChord() * (1 + PRUNE_SLACK)) {
+      return false;
+    }
+    return !topK.isFull() || squaredDistance <= topK.worstKey() * (1 + PRUNE_SLACK);
+  }
+
+  private void split(int lo, int hi) {
+    if (hi - lo <= LEAF_SIZE) {
+      return;
+    }
+    int axis = widestAxis(lo, hi);
+    int mid = (lo + hi) >>> 1;
+    select(lo, hi - 1, mid, coordinates[axis]);
+    axes[mid] = (byte) axis;
+    split(lo, mid);
+    split(mid + 1, hi);
+  }
+
+  private int widestAxis(int lo, int hi) {
+    int widest = 0;
+    double widestSpread = -1;
+    for (int axis = 0; axis < 3; axis++) {
+      double min = Double.POSITIVE_INFINITY;
+      double max = Double.NEGATIVE_INFINITY;
+      for (int i = lo; i < hi; i++) {
+        double value = coordinates[axis][order[i]];
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+      }
+      if (max - min > widestSpread) {
+        widestSpread = max - min;
+        widest = axis;
+      }
+    }
+    return widest;
+  }
+
+  // Quickselect: arranges order[left..right] so that order[nth] holds the median value, with
+  // smaller or equal values before it and greater or equal values after it
+  private void select(int left, int right, int nth, double[] values) {
+    while (left < right) {
+      int middle = (left + right) >>> 1;
+      double pivot = values[order[middle]];
+      int i = left;
+      int j = right;
+      while (i <= j) {
+        while (values[order[i]] < pivot) {
+          i++;
+        }
+        while (values[order[j]] > pivot) {
+          j--;
+        }
+        if (i <= j) {
+          int swap = order[i];
+          order[i] = order[j];
+          order[j] = swap;
+          i++;
+          j--;
+        }
+      }
+      if (nth <= j) {
+        right = j;
+      } else if (nth >= i) {
+        left = i;
+      } else {
+        return;
+      }
+    }
+  }
+}
@@ -0,0 +1,63 @@
+package com.salesforce.functions.recipes.search;
+
+/**
+ * Finds the nearest schools by computing the distance to every school of the dataset, scanning the
+ * coordinate columns only.
+ */
+public final class LinearScan {
+
+  private LinearScan() {}
+
+  /**
+   * Find the k schools nearest to a point of origin.
+   *
+   * @param coordinates Coordinates of the schools to search
+   * @param latitude Latitude point of origin
+   * @param longitude Longitude point of origin
+   * @param k Number of schools to return
+   * @return Ranking Positions of the nearest schools with their distance in miles
+   */
+  public static Ranking nearest(
+      Coordinates coordinates, double latitude, double longitude, int k) {
+    double[] origin = Distances.unitVector(latitude, longitude);
+    int n = coordinates.size();
+    Ranking ranking;
+    if (k >= n * TopK.FULL_SORT_RATIO) {
+      double[] keys = new double[n];
+      for (int i = 0; i < n; i++) {
+        keys[i] = coordinates.squaredChord(i, origin);
+      }
+      ranking = TopK.select(keys, k);
+    } else {
+      ranking = scan(coordinates, 0, n, origin, k);
+    }
+    return Distances.toMiles(ranking, coordinates, latitude, longitude);
+  }
+
+  /**
+   * Find the k schools nearest to a point of the unit sphere within a range of the dataset.
+   *
+   * @param coordinates Coordinates of the schools to search
+   * @param lo First position to search
+   * @param hi Position after the last one to search
+   * @param origin Point of origin, see {@link Distances#unitVector}
+   * @param k Number of schools to return
+   * @return Ranking Positions of the nearest schools with their squared chord length
+   */
+  static Ranking scan(Coordinates coordinates, int lo, int hi, double[] origin, int k) {
+    double[] x = coordinates.x;
+    double[] y = coordinates.y;
+    double[] z = coordinates.z;
+    double originX = origin[0];
+    double originY = origin[1];
+    double originZ = origin[2];
+    TopK topK = new TopK(Math.min(k, hi - lo));
+    for (int i = lo; i < hi; i++) {
+      double dx = x[i] - originX;
+      double dy = y[i] - originY;
+      double dz = z[i] - originZ;
+      topK.offer(i, dx * dx + dy * dy + dz * dz);
+    }
+    return topK.toRanking();
+  }
+}
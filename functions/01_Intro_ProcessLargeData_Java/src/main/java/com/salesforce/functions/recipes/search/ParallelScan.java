@@ -0,0 +1,114 @@
+package com.salesforce.functions.recipes.search;
+
+import com.salesforce.functions.recipes.utils.Environment;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Finds the nearest schools by scanning the dataset in chunks on a {@link ForkJoinPool}. Each
+ * chunk keeps its own k nearest schools and partial results are merged pairwise, so the result is
+ * the same as a {@link LinearScan}. Datasets smaller than the threshold are not worth the
+ * coordination cost and are left to the sequential search.
+ */
+public final class ParallelScan {
+  private static final int MIN_CHUNK_SIZE = 4_096;
+
+  // Never accepts a dataset, every search stays sequential
+  public static final ParallelScan DISABLED = new ParallelScan(null, Integer.MAX_VALUE);
+
+  private final ForkJoinPool pool;
+  private final int threshold;
+
+  public ParallelScan(ForkJoinPool pool, int threshold) {
+    this.pool = pool;
+    this.threshold = threshold;
+  }
+
+  /**
+   * The parallel scan configured by the environment, shared by every invocation in this process.
+   *
+   * @return ParallelScan
+   */
+  public static ParallelScan getDefault() {
+    return DefaultHolder.INSTANCE;
+  }
+
+  /**
+   * Whether a dataset is large enough to be scanned in parallel.
+   *
+   * @param coordinates Coordinates of the schools to search
+   * @return boolean
+   */
+  public boolean accepts(Coordinates coordinates) {
+    return coordinates.size() >= threshold;
+  }
+
+  /**
+   * Find the k schools nearest to a point of origin.
+   *
+   * @param coordinates Coordinates of the schools to search
+   * @param latitude Latitude point of origin
+   * @param longitude Longitude point of origin
+   * @param k Number of schools to return
+   * @return Ranking Positions of the nearest schools with their distance in miles
+   */
+  public Ranking nearest(Coordinates coordinates, double latitude, double longitude, int k) {
+    if (k <= 0 || coordinates.size() == 0) {
+      return Ranking.EMPTY;
+    }
+    // A few chunks per worker so idle workers can steal from busy ones
+    int chunkSize =
+        Math.max(MIN_CHUNK_SIZE, coordinates.size() / (4 * pool.getParallelism()) + 1);
+    double[] origin = Distances.unitVector(latitude, longitude);
+    Ranking ranking =
+        pool.invoke(new ScanTask(coordinates, 0, coordinates.size(), chunkSize, origin, k));
+    return Distances.toMiles(ranking, coordinates, latitude, longitude);
+  }
+
+  private static class DefaultHolder {
+    static final ParallelScan INSTANCE = create();
+
+    private static ParallelScan create() {
+      int parallelism = Environment.getParallelism();
+      if (parallelism == 1) {
+        return DISABLED;
+      }
+      ForkJoinPool pool =
+          parallelism == 0 ? ForkJoinPool.commonPool() : new ForkJoinPool(parallelism);
+      return new ParallelScan(pool, Environment.getParallelThreshold());
+    }
+  }
+
+  private static final class ScanTask extends RecursiveTask<Ranking> {
+    private static final long serialVersionUID = 1L;
+
+    private final Coordinates coordinates;
+    private final int lo;
+    private final int hi;
+    private final int chunkSize;
+    private final double[] origin;
+    private final int k;
+
+    ScanTask(Coordinates coordinates, int lo, int hi, int chunkSize, double[] origin, int k) {
+      this.coordinates = coordinates;
+      this.lo = lo;
+      this.hi = hi;
+      this.chunkSize = chunkSize;
+      this.origin = origin;
+      this.k = k;
+    }
+
+    @Override
+    protected Ranking compute() {
+      if (hi - lo <= chunkSize) {
+        return LinearScan.scan(coordinates, lo, hi, origin, k);
+      }
+      int mid = (lo + hi) >>> 1;
+      ScanTask left = new ScanTask(coordinates, lo, mid, chunkSize, origin, k);
+      ScanTask right = new ScanTask(coordinates, mid, hi, chunkSize, origin, k);
+      left.fork();
+      Ranking rightRanking = right.compute();
+      return Ranking.merge(left.join(), rightRanking, k);
+    }
+  }
+}
@@ -0,0 +1,92 @@
+package com.salesforce.functions.recipes.search;
+
+import java.util.Arrays;
+
+/**
+ * Positions of dataset records ordered by ascending key, together with their keys.
+ */
+public final class Ranking {
+  static final Ranking EMPTY = new Ranking(new int[0], new double[0]);
+
+  private final int[] positions;
+  private final double[] keys;
+
+  Ranking(int[] positions, double[] keys) {
+    this.positions = positions;
+    this.keys = keys;
+  }
+
+  public int size() {
+    return positions.length;
+  }
+
+  public int position(int rank) {
+    return positions[rank];
+  }
+
+  public double key(int rank) {
+    return keys[rank];
+  }
+
+  /**
+   * The same ranking with every position shifted, to refer to records stored after another list.
+   *
+   * @param offset Added to every position
+   * @return Ranking
+   */
+  public Ranking offset(int offset) {
+    int[] shifted = new int[positions.length];
+    for (int i = 0; i < shifted.length; i++) {
+      shifted[i] = positions[i] + offset;
+    }
+    return new Ranking(shifted, keys);
+  }
+
+  /**
+   * The leading part of this ranking with keys up to a limit.
+   *
+   * @param maxKey Largest key kept
+   * @return Ranking
+   */
+  Ranking within(double maxKey) {
+    int size = 0;
+    while (size < keys.length && keys[size] <= maxKey) {
+      size++;
+    }
+    return size == keys.length
+        ? this
+        : new Ranking(Arrays.copyOf(positions, size), Arrays.copyOf(keys, size));
+  }
+
+  /**
+   * Merge two rankings into the k best of both.
+   *
+   * @param left Ranking
+   * @param right Ranking
+   * @param k Number of positions to keep
+   * @return Ranking
+   */
+  public static Ranking merge(Ranking left, Ranking right, int k) {
+    int size = Math.min(k, left.size() + right.size());
+    int[] positions = new int[size];
+    double[] keys = new double[size];
+    int l = 0;
+    int r = 0;
+    for (int i = 0; i < size; i++) {
+      boolean takeLeft =
+          r == right.size()
+              || (l < left.size()
+                  && (left.keys[l] < right.keys[r]
+                      || (left.keys[l] == right.keys[r]
+                          && left.positions[l] < right.positions[r])));
+      if (takeLeft) {
+        positions[i] = left.positions[l];
+        keys[i] = left.keys[l++];
+      } else {
+        positions[i] = right.positions[r];
+        keys[i] = right.keys[r++];
+      }
+    }
+    return new Ranking(positions, keys);
+  }
+}
@@ -0,0 +1,115 @@
+package com.salesforce.functions.recipes.search;
+
+/**
+ * The part of the globe a filtered search around a point of origin can return schools from. The
+ * radius is turned into a latitude band and a squared chord length once per query, so most schools
+ * outside it are rejected by comparing their latitude before any distance is computed.
+ */
+public final class Region {
+  private static final double MILES_PER_DEGREE = 60 * 1.1515;
+  // Widen the radius a little so rounding in the chord length never drops a school the distance
+  // formula puts on the edge, the final distances are checked against the exact radius
+  private static final double RADIUS_SLACK_MILES = 1e-3;
+
+  private final double[] origin;
+  private final double minLatitude;
+  private final double maxLatitude;
+  private final BoundingBox boundingBox;
+  private final double maxSquaredChord;
+  private final SearchAfter after;
+
+  private Region(double[] origin, double minLatitude, double maxLatitude,
+      BoundingBox boundingBox, double maxSquaredChord, SearchAfter after) {
+    this.origin = origin;
+    this.minLatitude = minLatitude;
+    this.maxLatitude = maxLatitude;
+    this.boundingBox = boundingBox;
+    this.maxSquaredChord = maxSquaredChord;
+    this.after = after;
+  }
+
+  /**
+   * The region a filter allows around a point of origin.
+   *
+   * @param latitude Latitude point of origin
+   * @param longitude Longitude point of origin
+   * @param filter Filter
+   * @return Region
+   */
+  public static Region around(double latitude, double longitude, SchoolFilter filter) {
+    return around(latitude, longitude, filter, null);
+  }
+
+  /**
+   * The region a filter allows around a point of origin, past the schools of previous pages.
+   *
+   * @param latitude Latitude point of origin
+   * @param longitude Longitude point of origin
+   * @param filter Filter
+   * @param after Place the search resumes after, or null to start from the point of origin
+   * @return Region
+   */
+  public static Region around(
+      double latitude, double longitude, SchoolFilter filter, SearchAfter after) {
+    double[] origin = Distances.unitVector(latitude, longitude);
+    if (!filter.hasRadius()) {
+      return new Region(origin, -90, 90, filter.getBoundingBox(), Double.POSITIVE_INFINITY, after);
+    }
+    double degrees = (filter.getRadius() + RADIUS_SLACK_MILES) / MILES_PER_DEGREE;
+    double maxSquaredChord = Double.POSITIVE_INFINITY;
+    if (degrees < 180) {
+      double chord = 2 * Math.sin(Math.toRadians(degrees) / 2);
+      maxSquaredChord = chord * chord;
+    }
+    return new Region(origin, latitude - degrees, latitude + degrees, filter.getBoundingBox(),
+        maxSquaredChord, after);
+  }
+
+  /**
+   * Point of origin on the unit sphere.
+   *
+   * @return double[]
+   */
+  public double[] origin() {
+    return origin;
+  }
+
+  /**
+   * Cheap test on a position, without computing its distance: whether it is in the latitude band
+   * of the radius and inside the bounding box.
+   *
+   * @param latitude Latitude
+   * @param longitude Longitude
+   * @return boolean
+   */
+  public boolean contains(double latitude, double longitude) {
+    return latitude >= minLatitude
+        && latitude <= maxLatitude
+        && (boundingBox == null || boundingBox.contains(latitude, longitude));
+  }
+
+  /**
+   * Whether a squared chord length from the point of origin is within the radius.
+   *
+   * @param squaredChord Squared chord length
+   * @return boolean
+   */
+  public boolean reaches(double squaredChord) {
+    return squaredChord <= maxSquaredChord;
+  }
+
+  /**
+   * Whether a school comes after the schools of previous pages.
+   *
+   * @param squaredChord Squared chord length from the point of origin
+   * @param position Position of the school
+   * @return boolean
+   */
+  public boolean follows(double squaredChord, int position) {
+    return after == null || after.admits(squaredChord, position);
+  }
+
+  double maxSquaredChord() {
+    return maxSquaredChord;
+  }
+}
@@ -0,0 +1,170 @@
+package com.salesforce.functions.recipes.search;
+
+import com.salesforce.functions.recipes.School;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Restricts a search to schools within a radius of the point of origin, inside a bounding box,
+ * or with given attribute values. Within each attribute a school matches any of the values given,
+ * and it has to match every attribute that has values.
+ */
+public final class SchoolFilter {
+  public static final SchoolFilter NONE = new SchoolFilter(null, null, null, null, null);
+
+  private final double radius;
+  private final BoundingBox boundingBox;
+  private final Set<String> states;
+  private final Set<String> levels;
+  private final Set<String> formats;
+
+  /**
+   * Create a filter, every argument is optional.
+   *
+   * @param radius Largest distance from the point of origin in miles
+   * @param boundingBox Box the schools have to be in
+   * @param states Accepted states
+   * @param levels Accepted levels, a school matches if it has one of them
+   * @param formats Accepted formats
+   * @throws IllegalArgumentException if the radius is negative or the box is upside down
+   */
+  public SchoolFilter(
+      Double radius,
+      BoundingBox boundingBox,
+      Collection<String> states,
+      Collection<String> levels,
+      Collection<String> formats) {
+    if (radius != null && !(radius >= 0)) {
+      throw new IllegalArgumentException("radius must be a positive number of miles: " + radius);
+    }
+    if (boundingBox != null && !(boundingBox.getSouth() <= boundingBox.getNorth())) {
+      throw new IllegalArgumentException("boundingBox south must not be north of north: "
+          + boundingBox);
+    }
+    this.radius = radius != null ? radius : Double.POSITIVE_INFINITY;
+    this.boundingBox = boundingBox;
+    this.states = normalize(states);
+    this.levels = normalize(levels);
+    this.formats = normalize(formats);
+  }
+
+  /**
+   * Whether the filter accepts every school.
+   *
+   * @return boolean
+   */
+  public boolean isEmpty() {
+    return !isRange() && !hasAttributes();
+  }
+
+  /**
+   * Whether the filter limits the distance or position of the schools. Such queries return every
+   * school matching them unless a length is given.
+   *
+   * @return boolean
+   */
+  public boolean isRange() {
+    return hasRadius() || boundingBox != null;
+  }
+
+  public boolean hasRadius() {
+    return radius != Double.POSITIVE_INFINITY;
+  }
+
+  public boolean hasAttributes() {
+    return !states.isEmpty() || !levels.isEmpty() || !formats.isEmpty();
+  }
+
+  /**
+   * Largest distance from the point of origin in miles.
+   *
+   * @return double Positive infinity when there is no radius
+   */
+  public double getRadius() {
+    return radius;
+  }
+
+  public BoundingBox getBoundingBox() {
+    return boundingBox;
+  }
+
+  Set<String> getStates() {
+    return states;
+  }
+
+  Set<String> getLevels() {
+    return levels;
+  }
+
+  Set<String> getFormats() {
+    return formats;
+  }
+
+  /**
+   * Whether a school has the accepted attribute values and is inside the bounding box. The radius
+   * depends on the point of origin and is checked by the search.
+   *
+   * @param school School
+   * @return boolean
+   */
+  public boolean matches(School school) {
+    if (boundingBox != null && !boundingBox.contains(school.getLatitude(), school.getLongitude())) {
+      return false;
+    }
+    if (!states.isEmpty() && !states.contains(normalize(school.getState()))) {
+      return false;
+    }
+    if (!formats.isEmpty() && !formats.contains(normalize(school.getFormat()))) {
+      return false;
+    }
+    if (!levels.isEmpty()) {
+      if (school.getLevels() == null) {
+        return false;
+      }
+      for (String level : school.getLevels()) {
+        if (levels.contains(normalize(level))) {
+          return true;
+        }
+      }
+      return false;
+    }
+    return true;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (!(o instanceof SchoolFilter)) {
+      return false;
+    }
+    SchoolFilter other = (SchoolFilter) o;
+    return Double.compare(radius, other.radius) == 0
+        && Objects.equals(boundingBox, other.boundingBox)
+        && states.equals(other.states)
+        && levels.equals(other.levels)
+        && formats.equals(other.formats);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(radius, boundingBox, states, levels, formats);
+  }
+
+  static String normalize(String value) {
+    return value == null ? null : value.trim().toLowerCase(Locale.ROOT);
+  }
+
+  private static Set<String> normalize(Collection<String> values) {
+    if (values == null || values.isEmpty()) {
+      return Collections.emptySet();
+    }
+    Set<String> normalized = new HashSet<>();
+    for (String value : values) {
+      normalized.add(normalize(value));
+    }
+    return Collections.unmodifiableSet(normalized);
+  }
+}
@@ -0,0 +1,54 @@
+package com.salesforce.functions.recipes.search;
+
+/**
+ * The place in the results of a query a search resumes after, to return the following page without
+ * ranking the previous ones again. Schools are ordered by squared chord length from the point of
+ * origin and then by position, the same order as {@link TopK}.
+ */
+public final class SearchAfter {
+  private final double squaredChord;
+  private final int position;
+
+  /**
+   * Resume after a school.
+   *
+   * @param squaredChord Squared chord length of the school from the point of origin, see {@link
+   *     Distances#squaredChord}
+   * @param position Position of the school, schools at the same distance are returned after it only
+   *     if their position is greater
+   */
+  public SearchAfter(double squaredChord, int position) {
+    this.squaredChord = squaredChord;
+    this.position = position;
+  }
+
+  public double getSquaredChord() {
+    return squaredChord;
+  }
+
+  public int getPosition() {
+    return position;
+  }
+
+  /**
+   * Whether a school comes after this place.
+   *
+   * @param squaredChord Squared chord length of the school from the point of origin
+   * @param position Position of the school
+   * @return boolean
+   */
+  public boolean admits(double squaredChord, int position) {
+    return squaredChord > this.squaredChord
+        || (squaredChord == this.squaredChord && position > this.position);
+  }
+
+  /**
+   * The same place for schools stored after another list, whose positions start at a given one.
+   *
+   * @param start Position of the first school of the list
+   * @return SearchAfter
+   */
+  public SearchAfter relativeTo(int start) {
+    return new SearchAfter(squaredChord, position - start);
+  }
+}
@@ -0,0 +1,177 @@
+package com.salesforce.functions.recipes.search;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Keeps the k smallest keys offered to it in a bounded max-heap, in O(n log k) instead of sorting
+ * every value. Ties are broken by position so the result is the same as a stable sort followed by a
+ * limit, whatever order the positions are offered in.
+ */
+public final class TopK {
+  // Past this share of the input a full sort does less work than the heap
+  static final double FULL_SORT_RATIO = 0.5;
+  public static final int NONE = -1;
+  // The heap grows up to k as candidates arrive, so a large k only costs what is kept
+  private static final int INITIAL_CAPACITY = 16;
+
+  private final int k;
+  private int[] positions;
+  private double[] keys;
+  private int size;
+
+  public TopK(int k) {
+    this.k = Math.max(k, 0);
+    this.positions = new int[Math.min(this.k, INITIAL_CAPACITY)];
+    this.keys = new double[positions.length];
+  }
+
+  /**
+   * Select the k smallest keys of an array.
+   *
+   * @param keys Values to rank, lower is better
+   * @param k Number of positions to return
+   * @return Ranking Positions of the k smallest keys ordered by ascending key
+   */
+  public static Ranking select(double[] keys, int k) {
+    int n = keys.length;
+    if (k <= 0 || n == 0) {
+      return Ranking.EMPTY;
+    }
+    if (k >= n * FULL_SORT_RATIO) {
+      return sort(keys, Math.min(k, n));
+    }
+    TopK topK = new TopK(k);
+    for (int i = 0; i < n; i++) {
+      topK.offer(i, keys[i]);
+    }
+    return topK.toRanking();
+  }
+
+  /**
+   * Offer a candidate, it is kept if it ranks among the k best seen so far.
+   *
+   * @param position Position of the candidate
+   * @param key Value to rank, lower is better
+   * @return int The position that is no longer kept: the candidate itself if it was rejected, the
+   *     previous worst candidate if it was pushed out, or {@link #NONE} if the heap had room
+   */
+  public int offer(int position, double key) {
+    if (size < k) {
+      if (size == positions.length) {
+        int capacity = (int) Math.min(k, 2L * size);
+        positions = Arrays.copyOf(positions, capacity);
+        keys = Arrays.copyOf(keys, capacity);
+      }
+      positions[size] = position;
+      keys[size] = key;
+      siftUp(size++);
+      return NONE;
+    }
+    if (size == 0 || !better(key, position, keys[0], positions[0])) {
+      return position;
+    }
+    int evicted = positions[0];
+    positions[0] = position;
+    keys[0] = key;
+    siftDown(size);
+    return evicted;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isFull() {
+    return size == k;
+  }
+
+  /**
+   * The key a candidate has to beat to be kept.
+   *
+   * @return double Worst key kept so far, or positive infinity while the heap is not full
+   */
+  public double worstKey() {
+    return isFull() && size > 0 ? keys[0] : Double.POSITIVE_INFINITY;
+  }
+
+  /**
+   * Empty the heap into a ranking ordered by ascending key.
+   *
+   * @return Ranking
+   */
+  public Ranking toRanking() {
+    int[] sortedPositions = new int[size];
+    double[] sortedKeys = new double[size];
+    // Pop the worst remaining candidate into the tail until the heap is empty
+    for (int last = size - 1; last >= 0; last--) {
+      sortedPositions[last] = positions[0];
+      sortedKeys[last] = keys[0];
+      positions[0] = positions[last];
+      keys[0] = keys[last];
+      siftDown(last);
+    }
+    size = 0;
+    return new Ranking(sortedPositions, sortedKeys);
+  }
+
+  private static Ranking sort(double[] keys, int k) {
+    Integer[] order = new Integer[keys.length];
+    for (int i = 0; i < order.length; i++) {
+      order[i] = i;
+    }
+    Arrays.sort(order, Comparator.comparingDouble(i -> keys[i]));
+    int[] positions = new int[k];
+    double[] sortedKeys = new double[k];
+    for (int i = 0; i < k; i++) {
+      positions[i] = order[i];
+      sortedKeys[i] = keys[order[i]];
+    }
+    return new Ranking(positions, sortedKeys);
+  }
+
+  private static boolean better(double key, int position, double otherKey, int otherPosition) {
+    return key < otherKey || (key == otherKey && position < otherPosition);
+  }
+
+  private void siftUp(int index) {
+    int position = positions[index];
+    double key = keys[index];
+    while (index > 0) {
+      int parent = (index - 1) >>> 1;
+      if (!better(keys[parent], positions[parent], key, position)) {
+        break;
+      }
+      positions[index] = positions[parent];
+      keys[index] = keys[parent];
+      index = parent;
+    }
+    positions[index] = position;
+    keys[index] = key;
+  }
+
+  private void siftDown(int size) {
+    if (size == 0) {
+      return;
+    }
+    int index = 0;
+    int position = positions[0];
+    double key = keys[0];
+    int half = size >>> 1;
+    while (index < half) {
+      int child = 2 * index + 1;
+      int right = child + 1;
+      if (right < size && better(keys[child], positions[child], keys[right], positions[right])) {
+        child = right;
+      }
+      if (!better(key, position, keys[child], positions[child])) {
+        break;
+      }
+      positions[index] = positions[child];
+      keys[index] = keys[child];
+      index = child;
+    }
+    positions[index] = position;
+    keys[index] = key;
+  }
+}
@@ -0,0 +1,131 @@
+package com.salesforce.functions.recipes.utils;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * This class contains the environment variables used by the Function.
+ */
+public class Environment {
+
+  /**
+   * How the schools dataset is read, from the SCHOOLS_DATASET_MODE environment variable.
+   * "memory" (the default) keeps the whole dataset cached in memory, "streaming" reads the file on
+   * every invocation keeping only the nearest schools found so far.
+   *
+   * @return DatasetMode
+   */
+  public static DatasetMode getDatasetMode() {
+    String mode = System.getenv("SCHOOLS_DATASET_MODE");
+    if (mode == null || mode.isBlank()) {
+      return DatasetMode.MEMORY;
+    }
+    try {
+      return DatasetMode.valueOf(mode.trim().toUpperCase(Locale.ROOT));
+    } catch (IllegalArgumentException e) {
+      throw new IllegalStateException("SCHOOLS_DATASET_MODE must be memory or streaming", e);
+    }
+  }
+
+  /**
+   * Whether to write a binary copy of the schools dataset after parsing the JSON file, from the
+   * SCHOOLS_BINARY_CACHE environment variable. The next cold start then maps the binary copy
+   * instead of parsing JSON.
+   *
+   * @return boolean
+   */
+  public static boolean isBinaryCacheEnabled() {
+    return Boolean.parseBoolean(System.getenv("SCHOOLS_BINARY_CACHE"));
+  }
+
+  /**
+   * Number of threads scanning the dataset, from the SCHOOLS_PARALLELISM environment variable.
+   * Unset or "1" keeps searches sequential, "common" uses the common ForkJoinPool and any other
+   * number creates a dedicated pool with that many threads.
+   *
+   * @return int Number of threads, or 0 for the common ForkJoinPool
+   */
+  public static int getParallelism() {
+    String parallelism = System.getenv("SCHOOLS_PARALLELISM");
+    if (parallelism == null || parallelism.isBlank()) {
+      return 1;
+    }
+    if ("common".equalsIgnoreCase(parallelism.trim())) {
+      return 0;
+    }
+    return (int) getNumber("SCHOOLS_PARALLELISM", 1, 1);
+  }
+
+  /**
+   * Smallest dataset scanned in parallel, from the SCHOOLS_PARALLEL_THRESHOLD environment
+   * variable. Smaller datasets are searched sequentially.
+   *
+   * @return int Number of schools, 50000 by default
+   */
+  public static int getParallelThreshold() {
+    return (int) getNumber("SCHOOLS_PARALLEL_THRESHOLD", 50_000, 0);
+  }
+
+  /**
+   * Largest number of query results cached in memory, from the SCHOOLS_RESULT_CACHE_SIZE
+   * environment variable. Unset or 0 disables the cache.
+   *
+   * @return int Number of results
+   */
+  public static int getResultCacheSize() {
+    return (int) getNumber("SCHOOLS_RESULT_CACHE_SIZE", 0, 0);
+  }
+
+  /**
+   * How long a cached query result is kept, from the SCHOOLS_RESULT_CACHE_TTL environment variable
+   * in seconds.
+   *
+   * @return Duration 5 minutes by default
+   */
+  public static Duration getResultCacheTtl() {
+    return Duration.ofSeconds(getNumber("SCHOOLS_RESULT_CACHE_TTL", 300, 0));
+  }
+
+  /**
+   * Number of decimal places points of origin are rounded to before looking up the result cache,
+   * from the SCHOOLS_RESULT_CACHE_PRECISION environment variable.
+   *
+   * @return int Decimal places, 4 (about 10 meters) by default
+   */
+  public static int getResultCachePrecision() {
+    return (int) getNumber("SCHOOLS_RESULT_CACHE_PRECISION", 4, 0);
+  }
+
+  /**
+   * Number of synthetic invocations run when the function is created, before traffic arrives,
+   * from the SCHOOLS_WARMUP environment variable. They load the dataset and let the JIT compile
+   * the search and serialization code. Unset or 0 disables the warmup.
+   *
+   * @return int Number of invocations
+   */
+  public static int getWarmupIterations() {
+    return (int) getNumber("SCHOOLS_WARMUP", 0, 0);
+  }
+
+  private static long getNumber(String name, long defaultValue, long min) {
+    String value = System.getenv(name);
+    if (value == null || value.isBlank()) {
+      return defaultValue;
+    }
+    try {
+      long number = Long.parseLong(value.trim());
+      if (number < min || number > Integer.MAX_VALUE) {
+        throw new NumberFormatException(value);
+      }
+      return number;
+    } catch (NumberFormatException e) {
+      throw new IllegalStateException(
+          name + " must be a number from " + min + " to " + Integer.MAX_VALUE, e);
+    }
+  }
+
+  public enum DatasetMode {
+    MEMORY,
+    STREAMING
+  }
+}
@@ -0,0 +1,88 @@
+package com.salesforce.functions.recipes;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.salesforce.functions.jvm.sdk.Context;
+import com.salesforce.functions.jvm.sdk.InvocationEvent;
+import com.salesforce.functions.recipes.data.SchoolsRepository;
+import com.salesforce.functions.recipes.search.ParallelScan;
+import com.salesforce.functions.recipes.utils.Environment.DatasetMode;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ConcurrentQueriesTest {
+  private static final int THREADS = 8;
+  private static final int QUERIES_PER_THREAD = 200;
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void testOriginsDoNotShareDistances() throws Exception {
+    Path path = folder.newFile("schools.json").toPath();
+    // A small dataset so most queries return the same schools with different distances
+    SchoolsFixture.write(path, SchoolsFixture.schools(50, 1));
+    ProcessLargeDataFunction function =
+        new ProcessLargeDataFunction(
+            new SchoolsRepository(path), DatasetMode.MEMORY, ParallelScan.DISABLED);
+
+    double[][] origins = new double[THREADS][];
+    List<FunctionOutput> expected = new ArrayList<>();
+    for (int thread = 0; thread < THREADS; thread++) {
+      origins[thread] = new double[] {26 + thread * 3, -120 + thread * 7};
+      expected.add(function.apply(createEventMock(origins[thread], 50), mock(Context.class)));
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    CountDownLatch start = new CountDownLatch(1);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int thread = 0; thread < THREADS; thread++) {
+        int origin = thread;
+        futures.add(executor.submit(() -> {
+          start.await();
+          for (int query = 0; query < QUERIES_PER_THREAD; query++) {
+            FunctionOutput output =
+                function.apply(createEventMock(origins[origin], 50), mock(Context.class));
+            assertSameSchools(expected.get(origin), output);
+          }
+          return null;
+        }));
+      }
+      start.countDown();
+      for (Future<?> future : futures) {
+        // Rethrows any assertion error raised on the worker thread
+        future.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private void assertSameSchools(FunctionOutput expected, FunctionOutput actual) {
+    assertEquals(expected.getSchools().size(), actual.getSchools().size());
+    for (int i = 0; i < expected.getSchools().size(); i++) {
+      NearbySchool expectedSchool = expected.getSchools().get(i);
+      NearbySchool actualSchool = actual.getSchools().get(i);
+      assertEquals(expectedSchool.getSchool().getName(), actualSchool.getSchool().getName());
+      assertEquals(expectedSchool.getDistance(), actualSchool.getDistance(), 0);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private InvocationEvent<FunctionInput> createEventMock(double[] origin, int length) {
+    InvocationEvent<FunctionInput> eventMock = mock(InvocationEvent.class);
+    when(eventMock.getData()).thenReturn(new FunctionInput(origin[0], origin[1], length));
+    return eventMock;
+  }
+}
@@ -1,15 +1,38 @@
 package com.salesforce.functions.recipes;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
 import com.salesforce.functions.jvm.sdk.Context;
 import com.salesforce.functions.jvm.sdk.InvocationEvent;
+import com.salesforce.functions.recipes.cache.ResultCache;
+import com.salesforce.functions.recipes.data.SchoolsRepository;
+import com.salesforce.functions.recipes.search.ParallelScan;
+import com.salesforce.functions.recipes.utils.Environment.DatasetMode;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 public class FunctionTest {
 
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
   @Test
   public void testSuccess() throws Exception {
     ProcessLargeDataFunction function = new ProcessLargeDataFunction();
@@ -28,6 +51,289 @@ public class FunctionTest {
     assertEquals(functionOutput.getSchools().size(), 0);
   }
 
+  @Test
+  public void testStreamingMatchesMemory() throws Exception {
+    SchoolsRepository repository = repositoryOver(SchoolsFixture.schools(5_000, 1));
+    InvocationEvent<FunctionInput> eventMock = createEventMock(36.169090, -115.140579, 25);
+
+    List<NearbySchool> memory =
+        new ProcessLargeDataFunction(repository, DatasetMode.MEMORY, ParallelScan.DISABLED)
+            .apply(eventMock, createContextMock())
+            .getSchools();
+    List<NearbySchool> streaming =
+        new ProcessLargeDataFunction(repository, DatasetMode.STREAMING, ParallelScan.DISABLED)
+            .apply(eventMock, createContextMock())
+            .getSchools();
+
+    assertEquals(25, memory.size());
+    assertEquals(memory.size(), streaming.size());
+    for (int i = 0; i < memory.size(); i++) {
+      assertEquals(memory.get(i).getSchool().getName(), streaming.get(i).getSchool().getName());
+      assertEquals(memory.get(i).getDistance(), streaming.get(i).getDistance(), 0);
+    }
+  }
+
+  @Test
+  public void testOutputJson() {
+    School school = SchoolsFixture.schools(1, 1).get(0);
+    FunctionOutput output = new FunctionOutput(List.of(new NearbySchool(school, 1.5)));
+    JsonObject json =
+        new Gson().toJsonTree(output).getAsJsonObject().getAsJsonArray("schools").get(0)
+            .getAsJsonObject();
+    assertEquals(school.getName(), json.get("name").getAsString());
+    assertEquals(school.getCity(), json.get("city").getAsString());
+    assertEquals(1.5, json.get("distance").getAsDouble(), 0);
+
+    // Missing values are dropped, and reading the output back falls back to reflection
+    school.setWebsite(null);
+    String written = new Gson().toJson(output);
+    assertFalse(written.contains("\"website\""));
+    FunctionOutput read = new Gson().fromJson(written, FunctionOutput.class);
+    assertEquals(1.5, read.getSchools().get(0).getDistance(), 0);
+  }
+
+  @Test
+  public void testFieldProjection() throws Exception {
+    ProcessLargeDataFunction function = functionOver(SchoolsFixture.schools(100, 1));
+    InvocationEvent<FunctionInput> eventMock = createEventMock(36.169090, -115.140579, 3);
+    eventMock.getData().setFields(List.of("name", "distance"));
+
+    FunctionOutput functionOutput = function.apply(eventMock, createContextMock());
+    JsonObject json = new Gson().toJsonTree(functionOutput).getAsJsonObject()
+        .getAsJsonArray("schools").get(0).getAsJsonObject();
+    assertEquals(Set.of("name", "distance"), json.keySet());
+    assertEquals(functionOutput.getSchools().get(0).getSchool().getName(),
+        json.get("name").getAsString());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testUnknownField() throws Exception {
+    ProcessLargeDataFunction function = functionOver(SchoolsFixture.schools(10, 1));
+    InvocationEvent<FunctionInput> eventMock = createEventMock(36.169090, -115.140579, 3);
+    eventMock.getData().setFields(List.of("name", "principal"));
+    function.apply(eventMock, createContextMock());
+  }
+
+  @Test
+  public void testBatchMatchesSingleOrigins() throws Exception {
+    SchoolsRepository repository = repositoryOver(SchoolsFixture.schools(2_000, 1));
+    List<Origin> origins = List.of(
+        new Origin(36.169090, -115.140579, 5),
+        new Origin(40.712776, -74.005974, 10),
+        new Origin(-33.868820, 151.209290, 1));
+    InvocationEvent<FunctionInput> batchMock = createEventMock();
+    batchMock.getData().setOrigins(origins);
+
+    for (DatasetMode mode : DatasetMode.values()) {
+      ProcessLargeDataFunction function =
+          new ProcessLargeDataFunction(repository, mode, ParallelScan.DISABLED);
+      FunctionOutput batch = function.apply(batchMock, createContextMock());
+      assertEquals(origins.size(), batch.getResults().size());
+      for (int i = 0; i < origins.size(); i++) {
+        Origin origin = origins.get(i);
+        List<NearbySchool> expected = function
+            .apply(createEventMock(origin.getLatitude(), origin.getLongitude(),
+                origin.getLength()), createContextMock())
+            .getSchools();
+        List<NearbySchool> actual = batch.getResults().get(i);
+        assertEquals(expected.size(), actual.size());
+        for (int rank = 0; rank < expected.size(); rank++) {
+          assertEquals(expected.get(rank).getSchool().getName(),
+              actual.get(rank).getSchool().getName());
+          assertEquals(expected.get(rank).getDistance(), actual.get(rank).getDistance(), 0);
+        }
+      }
+
+      JsonObject json = new Gson().toJsonTree(batch).getAsJsonObject();
+      assertEquals(Set.of("results"), json.keySet());
+      assertEquals(10, json.getAsJsonArray("results").get(1).getAsJsonObject()
+          .getAsJsonArray("schools").size());
+    }
+  }
+
+  @Test
+  public void testFiltersStreamingMatchesMemory() throws Exception {
+    SchoolsRepository repository = repositoryOver(SchoolsFixture.schools(5_000, 1));
+    InvocationEvent<FunctionInput> eventMock = createEventMock(36.169090, -115.140579, 0);
+    eventMock.getData().setRadius(250.0);
+    eventMock.getData().setStates(List.of("NV", "AZ"));
+    eventMock.getData().setLevels(List.of("high"));
+
+    List<NearbySchool> memory =
+        new ProcessLargeDataFunction(repository, DatasetMode.MEMORY, ParallelScan.DISABLED)
+            .apply(eventMock, createContextMock())
+            .getSchools();
+    List<NearbySchool> streaming =
+        new ProcessLargeDataFunction(repository, DatasetMode.STREAMING, ParallelScan.DISABLED)
+            .apply(eventMock, createContextMock())
+            .getSchools();
+
+    // Without a length, a radius query returns every school inside it
+    assertTrue(memory.size() > 1);
+    assertEquals(memory.size(), streaming.size());
+    for (int i = 0; i < memory.size(); i++) {
+      School school = memory.get(i).getSchool();
+      assertTrue(memory.get(i).getDistance() <= 250);
+      assertTrue(Set.of("NV", "AZ").contains(school.getState()));
+      assertEquals("high", school.getLevels()[0]);
+      assertEquals(school.getName(), streaming.get(i).getSchool().getName());
+    }
+  }
+
+  @Test
+  public void testPagesMatchSingleQuery() throws Exception {
+    // Schools sharing a building tie on distance, pages must neither repeat nor skip them
+    List<School> schools = new ArrayList<>(SchoolsFixture.schools(1_000, 1));
+    schools.addAll(SchoolsFixture.schools(1_000, 1));
+    ProcessLargeDataFunction function = functionOver(schools);
+
+    for (Double radius : Arrays.asList(null, 400.0)) {
+      InvocationEvent<FunctionInput> allMock = createEventMock(36.169090, -115.140579, 100);
+      allMock.getData().setRadius(radius);
+      List<NearbySchool> expected = function.apply(allMock, createContextMock()).getSchools();
+
+      List<NearbySchool> actual = new ArrayList<>();
+      String cursor = null;
+      do {
+        InvocationEvent<FunctionInput> pageMock = createEventMock(36.169090, -115.140579, 0);
+        pageMock.getData().setRadius(radius);
+        pageMock.getData().setPageSize(7);
+        pageMock.getData().setCursor(cursor);
+        FunctionOutput page = function.apply(pageMock, createContextMock());
+        assertTrue(page.getSchools().size() <= 7);
+        actual.addAll(page.getSchools());
+        cursor = page.getNextCursor();
+      } while (cursor != null && actual.size() < 100);
+
+      // The last page may run past the length of the single query
+      actual = actual.subList(0, Math.min(100, actual.size()));
+      assertEquals(expected.size(), actual.size());
+      for (int i = 0; i < expected.size(); i++) {
+        assertSame(expected.get(i).getSchool(), actual.get(i).getSchool());
+        assertEquals(expected.get(i).getDistance(), actual.get(i).getDistance(), 0);
+      }
+    }
+  }
+
+  @Test
+  public void testLastPageHasNoCursor() throws Exception {
+    ProcessLargeDataFunction function = functionOver(SchoolsFixture.schools(10, 1));
+    InvocationEvent<FunctionInput> eventMock = createEventMock(36.169090, -115.140579, 0);
+    eventMock.getData().setPageSize(6);
+
+    FunctionOutput first = function.apply(eventMock, createContextMock());
+    assertEquals(6, first.getSchools().size());
+    JsonObject json = new Gson().toJsonTree(first).getAsJsonObject();
+    assertEquals(first.getNextCursor(), json.get("nextCursor").getAsString());
+
+    eventMock.getData().setCursor(first.getNextCursor());
+    FunctionOutput second = function.apply(eventMock, createContextMock());
+    assertEquals(4, second.getSchools().size());
+    assertNull(second.getNextCursor());
+    assertEquals(Set.of("schools"), new Gson().toJsonTree(second).getAsJsonObject().keySet());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testCursorOfAnotherQuery() throws Exception {
+    ProcessLargeDataFunction function = functionOver(SchoolsFixture.schools(100, 1));
+    InvocationEvent<FunctionInput> eventMock = createEventMock(36.169090, -115.140579, 0);
+    eventMock.getData().setPageSize(5);
+    String cursor = function.apply(eventMock, createContextMock()).getNextCursor();
+
+    InvocationEvent<FunctionInput> otherMock = createEventMock(40.712776, -74.005974, 0);
+    otherMock.getData().setPageSize(5);
+    otherMock.getData().setCursor(cursor);
+    function.apply(otherMock, createContextMock());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testPaginationInStreamingMode() throws Exception {
+    SchoolsRepository repository = repositoryOver(SchoolsFixture.schools(10, 1));
+    ProcessLargeDataFunction function =
+        new ProcessLargeDataFunction(repository, DatasetMode.STREAMING, ParallelScan.DISABLED);
+    InvocationEvent<FunctionInput> eventMock = createEventMock(36.169090, -115.140579, 0);
+    eventMock.getData().setPageSize(5);
+    function.apply(eventMock, createContextMock());
+  }
+
+  @Test
+  public void testResultCacheMatchesUncached() throws Exception {
+    // Schools sharing a building tie on distance, and are ranked by their position either way
+    List<School> schools = new ArrayList<>(SchoolsFixture.schools(5_000, 1));
+    schools.addAll(SchoolsFixture.schools(1_000, 1));
+    SchoolsRepository repository = repositoryOver(schools);
+    ProcessLargeDataFunction uncached =
+        new ProcessLargeDataFunction(repository, DatasetMode.MEMORY, ParallelScan.DISABLED);
+    // Origins are rounded to 0.1 degree, several miles, so nearby origins share candidates
+    ResultCache resultCache = new ResultCache(100, Duration.ofMinutes(5), 1);
+    ProcessLargeDataFunction cached = new ProcessLargeDataFunction(
+        repository, DatasetMode.MEMORY, ParallelScan.DISABLED, resultCache);
+
+    Random random = new Random(1);
+    for (int i = 0; i < 200; i++) {
+      // Off the rounding grid, in a few cells
+      double latitude = 36.1 + random.nextInt(3) * 0.1 + random.nextDouble() * 0.1;
+      double longitude = -115.1 - random.nextInt(3) * 0.1 - random.nextDouble() * 0.1;
+      int length = 1 + random.nextInt(20);
+      List<NearbySchool> expected =
+          uncached.apply(createEventMock(latitude, longitude, length), createContextMock())
+              .getSchools();
+      List<NearbySchool> actual =
+          cached.apply(createEventMock(latitude, longitude, length), createContextMock())
+              .getSchools();
+      assertEquals(expected.size(), actual.size());
+      for (int rank = 0; rank < expected.size(); rank++) {
+        assertSame(expected.get(rank).getSchool(), actual.get(rank).getSchool());
+        assertEquals(expected.get(rank).getDistance(), actual.get(rank).getDistance(), 1e-6);
+      }
+    }
+    assertTrue(resultCache.stats().getHits() > 0);
+  }
+
+  @Test
+  public void testApproximateDistanceRatio() throws Exception {
+    ProcessLargeDataFunction function = functionOver(SchoolsFixture.schools(5_000, 1));
+    InvocationEvent<FunctionInput> exactMock = createEventMock(36.169090, -115.140579, 20);
+    List<NearbySchool> exact = function.apply(exactMock, createContextMock()).getSchools();
+
+    InvocationEvent<FunctionInput> approximateMock = createEventMock(36.169090, -115.140579, 20);
+    approximateMock.getData().setDistanceRatio(0.5);
+    List<NearbySchool> approximate =
+        function.apply(approximateMock, createContextMock()).getSchools();
+    assertEquals(exact.size(), approximate.size());
+    // Approximate results are still ordered by distance, and never closer than the exact ones
+    for (int i = 0; i < approximate.size(); i++) {
+      assertTrue(i == 0
+          || approximate.get(i - 1).getDistance() <= approximate.get(i).getDistance());
+      assertTrue(approximate.get(i).getDistance() >= exact.get(i).getDistance());
+    }
+
+    // A distance ratio of 1 is the exact search
+    approximateMock.getData().setDistanceRatio(1.0);
+    List<NearbySchool> full = function.apply(approximateMock, createContextMock()).getSchools();
+    for (int i = 0; i < exact.size(); i++) {
+      assertSame(exact.get(i).getSchool(), full.get(i).getSchool());
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidDistanceRatio() throws Exception {
+    InvocationEvent<FunctionInput> eventMock = createEventMock(36.169090, -115.140579, 5);
+    eventMock.getData().setDistanceRatio(0.0);
+    new ProcessLargeDataFunction().apply(eventMock, createContextMock());
+  }
+
+  private ProcessLargeDataFunction functionOver(List<School> schools) throws IOException {
+    return new ProcessLargeDataFunction(
+        repositoryOver(schools), DatasetMode.MEMORY, ParallelScan.DISABLED);
+  }
+
+  private SchoolsRepository repositoryOver(List<School> schools) throws IOException {
+    Path path = folder.newFile("schools.json").toPath();
+    SchoolsFixture.write(path, schools);
+    return new SchoolsRepository(path);
+  }
+
   private Context createContextMock() {
     return mock(Context.class);
   }
@@ -0,0 +1,66 @@
+package com.salesforce.functions.recipes;
+
+import com.google.gson.Gson;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates synthetic schools datasets so tests do not depend on the Code.org database.
+ */
+public class SchoolsFixture {
+  private static final String[] STATES = {"NV", "CA", "AZ", "UT", "OR"};
+  private static final String[] LEVELS = {"elementary", "middle", "high", "college"};
+  private static final String[] FORMATS = {"in_school", "out_of_school", "online"};
+
+  /**
+   * Create a list of schools spread around the United States.
+   *
+   * @param count Number of schools
+   * @param seed Random seed, the same seed always produces the same schools
+   * @return List<School>
+   */
+  public static List<School> schools(int count, long seed) {
+    Random random = new Random(seed);
+    List<School> schools = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      School school = new School();
+      school.setName("School " + i);
+      school.setWebsite("https://school" + i + ".example.com");
+      school.setDescription("Synthetic school number " + i);
+      school.setLevels(new String[] {LEVELS[random.nextInt(LEVELS.length)]});
+      school.setLanguages(new String[] {"Java", "JavaScript"});
+      school.setFormat(FORMATS[random.nextInt(FORMATS.length)]);
+      school.setFormat_description("Format " + school.getFormat());
+      school.setStreet(i + " Main Street");
+      school.setCity("City " + (i % 50));
+      school.setState(STATES[random.nextInt(STATES.length)]);
+      school.setZip(String.format("%05d", random.nextInt(100000)));
+      school.setCountry("United States");
+      school.setLatitude(25 + random.nextDouble() * 24);
+      school.setLongitude(-124 + random.nextDouble() * 57);
+      schools.add(school);
+    }
+    return schools;
+  }
+
+  /**
+   * Write schools in the same format as the Code.org database.
+   *
+   * @param path Destination file
+   * @param schools Schools to write
+   * @throws IOException
+   */
+  public static void write(Path path, List<School> schools) throws IOException {
+    JsonResponse response = new JsonResponse();
+    response.setSchools(schools);
+    try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+      new Gson().toJson(response, writer);
+    }
+  }
+}
@@ -0,0 +1,34 @@
+package com.salesforce.functions.recipes;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.salesforce.functions.recipes.data.SchoolsRepository;
+import com.salesforce.functions.recipes.search.ParallelScan;
+import com.salesforce.functions.recipes.utils.Environment.DatasetMode;
+import java.nio.file.Path;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class WarmupTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void testRunsEveryQueryKind() throws Exception {
+    Path path = folder.newFile("schools.json").toPath();
+    SchoolsFixture.write(path, SchoolsFixture.schools(1_000, 1));
+    SchoolsRepository repository = new SchoolsRepository(path);
+
+    for (DatasetMode mode : DatasetMode.values()) {
+      Warmup.Report report =
+          Warmup.run(new ProcessLargeDataFunction(repository, mode, ParallelScan.DISABLED), 20);
+      assertEquals(20, report.getIterations());
+      assertTrue(report.getFirst().toNanos() > 0);
+      assertTrue(report.getWarmed().toNanos() > 0);
+      assertTrue(report.getTotal().compareTo(report.getFirst()) >= 0);
+    }
+  }
+}
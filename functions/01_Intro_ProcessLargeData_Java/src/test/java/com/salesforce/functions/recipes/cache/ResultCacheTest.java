@@ -0,0 +1,77 @@
+package com.salesforce.functions.recipes.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import com.salesforce.functions.recipes.NearbySchool;
+import com.salesforce.functions.recipes.SchoolsFixture;
+import com.salesforce.functions.recipes.search.SchoolFilter;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Test;
+
+public class ResultCacheTest {
+  private final AtomicLong clock = new AtomicLong();
+  private final AtomicInteger queries = new AtomicInteger();
+
+  @Test
+  public void testHitsAndMisses() {
+    ResultCache cache = new ResultCache(10, Duration.ofMinutes(1), 4, clock::get);
+    List<NearbySchool> first = get(cache, 1, cache.round(36.169090), cache.round(-115.140579));
+    List<NearbySchool> second = get(cache, 1, cache.round(36.169091), cache.round(-115.140581));
+    assertSame(first, second);
+    assertEquals(1, queries.get());
+    assertEquals(1, cache.stats().getHits());
+    assertEquals(1, cache.stats().getMisses());
+  }
+
+  @Test
+  public void testExpiry() {
+    ResultCache cache = new ResultCache(10, Duration.ofSeconds(30), 4, clock::get);
+    get(cache, 1, 36.1691, -115.1406);
+    clock.addAndGet(Duration.ofSeconds(31).toNanos());
+    get(cache, 1, 36.1691, -115.1406);
+    assertEquals(2, queries.get());
+  }
+
+  @Test
+  public void testEvictsLeastRecentlyUsed() {
+    ResultCache cache = new ResultCache(2, Duration.ofMinutes(1), 4, clock::get);
+    get(cache, 1, 1, 1);
+    get(cache, 1, 2, 2);
+    get(cache, 1, 1, 1);
+    get(cache, 1, 3, 3);
+    assertEquals(1, cache.stats().getEvictions());
+    get(cache, 1, 1, 1);
+    assertEquals(3, queries.get());
+    get(cache, 1, 2, 2);
+    assertEquals(4, queries.get());
+  }
+
+  @Test
+  public void testDatasetReloadInvalidates() {
+    ResultCache cache = new ResultCache(10, Duration.ofMinutes(1), 4, clock::get);
+    get(cache, 1, 1, 1);
+    get(cache, 2, 1, 1);
+    assertEquals(2, queries.get());
+    assertEquals(1, cache.stats().getSize());
+  }
+
+  @Test
+  public void testDisabled() {
+    get(ResultCache.DISABLED, 1, 1, 1);
+    get(ResultCache.DISABLED, 1, 1, 1);
+    assertEquals(2, queries.get());
+    assertEquals(36.169090, ResultCache.DISABLED.round(36.169090), 0);
+  }
+
+  private List<NearbySchool> get(
+      ResultCache cache, long version, double latitude, double longitude) {
+    return cache.get(version, latitude, longitude, 5, SchoolFilter.NONE, () -> {
+      queries.incrementAndGet();
+      return List.of(new NearbySchool(SchoolsFixture.schools(1, 1).get(0), 1));
+    });
+  }
+}
@@ -0,0 +1,68 @@
+package com.salesforce.functions.recipes.data;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.salesforce.functions.recipes.JsonResponse;
+import com.salesforce.functions.recipes.School;
+import com.salesforce.functions.recipes.SchoolsFixture;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.junit.Test;
+
+public class SchoolTypeAdapterTest {
+
+  @Test
+  public void testMatchesReflection() throws Exception {
+    List<School> expected = SchoolsFixture.schools(200, 4);
+    JsonResponse response = new JsonResponse();
+    response.setSchools(expected);
+    String json = new Gson().toJson(response);
+
+    List<School> actual = SchoolsRepository.parse(
+        new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+    assertEquals(expected.size(), actual.size());
+    for (int i = 0; i < expected.size(); i++) {
+      Gson gson = new Gson();
+      assertEquals(gson.toJson(expected.get(i)), gson.toJson(actual.get(i)));
+    }
+
+    Gson adapted =
+        new GsonBuilder().registerTypeAdapter(School.class, new SchoolTypeAdapter()).create();
+    assertEquals(new Gson().toJson(expected.get(0)), adapted.toJson(expected.get(0)));
+  }
+
+  @Test
+  public void testSharedGsonRoundTrip() {
+    JsonResponse response = new JsonResponse();
+    response.setSchools(SchoolsFixture.schools(50, 6));
+    String json = SchoolsJson.GSON.toJson(response);
+    assertEquals(new Gson().toJson(response), json);
+
+    JsonResponse read = SchoolsJson.GSON.fromJson("{\"total\": 50, \"schools\": "
+        + json.substring(json.indexOf('[')), JsonResponse.class);
+    assertEquals(json, SchoolsJson.GSON.toJson(read));
+  }
+
+  @Test
+  public void testDeduplicatesRepeatedValues() throws Exception {
+    String json = "{\"schools\": ["
+        + "{\"name\": \"A\", \"state\": \"NV\", \"levels\": [\"high\"], \"zip\": 89101},"
+        + "{\"name\": \"B\", \"state\": \"NV\", \"levels\": [\"high\"], \"extra\": {\"x\": 1}},"
+        + "{\"name\": \"C\", \"state\": null, \"latitude\": \"36.5\"}]}";
+    List<School> schools = SchoolsRepository.parse(
+        new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+
+    assertSame(schools.get(0).getState(), schools.get(1).getState());
+    assertSame(schools.get(0).getLevels(), schools.get(1).getLevels());
+    assertArrayEquals(new String[] {"high"}, schools.get(1).getLevels());
+    assertEquals("89101", schools.get(0).getZip());
+    assertNull(schools.get(2).getState());
+    assertEquals(36.5, schools.get(2).getLatitude(), 0);
+  }
+}
@@ -0,0 +1,101 @@
+package com.salesforce.functions.recipes.data;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.salesforce.functions.recipes.School;
+import com.salesforce.functions.recipes.SchoolsFixture;
+import com.salesforce.functions.recipes.search.Ranking;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SchoolsBinaryFormatTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void testSameSchools() throws Exception {
+    List<School> schools = SchoolsFixture.schools(1_000, 1);
+    // Missing fields are kept missing rather than turned into empty values
+    schools.get(3).setWebsite(null);
+    schools.get(3).setLevels(null);
+    schools.get(4).setLanguages(new String[0]);
+    Path json = folder.newFile("schools.json").toPath();
+    Path binary = folder.getRoot().toPath().resolve("schools.bin");
+    SchoolsFixture.write(json, schools);
+    SchoolsBinaryFormat.convert(json, binary);
+
+    List<School> decoded = SchoolsBinaryFormat.open(binary).schools();
+    assertEquals(schools.size(), decoded.size());
+    for (int i = 0; i < schools.size(); i++) {
+      assertSameSchool(schools.get(i), decoded.get(i));
+    }
+  }
+
+  @Test
+  public void testIdenticalResults() throws Exception {
+    Path json = folder.newFile("schools.json").toPath();
+    SchoolsFixture.write(json, SchoolsFixture.schools(5_000, 2));
+    SchoolsDataset fromJson = new SchoolsRepository(json).get();
+    SchoolsBinaryFormat.convert(json, folder.getRoot().toPath().resolve("schools.bin"));
+    SchoolsDataset fromBinary = new SchoolsRepository(json).get();
+
+    double[][] origins = {{36.169090, -115.140579}, {47.6, -122.3}, {40.7, -74.0}, {0, 0}};
+    for (double[] origin : origins) {
+      Ranking expected = fromJson.getIndex().nearest(origin[0], origin[1], 50);
+      Ranking actual = fromBinary.getIndex().nearest(origin[0], origin[1], 50);
+      assertEquals(expected.size(), actual.size());
+      for (int rank = 0; rank < expected.size(); rank++) {
+        assertEquals(expected.position(rank), actual.position(rank));
+        assertEquals(expected.key(rank), actual.key(rank), 0);
+        assertSameSchool(
+            fromJson.getSchools().get(expected.position(rank)),
+            fromBinary.getSchools().get(actual.position(rank)));
+      }
+    }
+  }
+
+  @Test
+  public void testStaleBinaryIgnored() throws Exception {
+    Path json = folder.newFile("schools.json").toPath();
+    SchoolsFixture.write(json, SchoolsFixture.schools(100, 1));
+    SchoolsBinaryFormat.convert(json, folder.getRoot().toPath().resolve("schools.bin"));
+    SchoolsFixture.write(json, SchoolsFixture.schools(30, 2));
+
+    assertEquals(30, new SchoolsRepository(json).get().getSchools().size());
+  }
+
+  @Test
+  public void testWritesBinaryOnFirstLoad() throws Exception {
+    Path json = folder.newFile("schools.json").toPath();
+    Path binary = folder.getRoot().toPath().resolve("cache.bin");
+    SchoolsFixture.write(json, SchoolsFixture.schools(100, 1));
+    new SchoolsRepository(json, binary, true).get();
+
+    assertTrue(Files.exists(binary));
+    assertEquals(100, new SchoolsRepository(json, binary, false).get().getSchools().size());
+  }
+
+  private void assertSameSchool(School expected, School actual) {
+    assertEquals(expected.getName(), actual.getName());
+    assertEquals(expected.getWebsite(), actual.getWebsite());
+    assertEquals(expected.getDescription(), actual.getDescription());
+    assertArrayEquals(expected.getLevels(), actual.getLevels());
+    assertArrayEquals(expected.getLanguages(), actual.getLanguages());
+    assertEquals(expected.getFormat(), actual.getFormat());
+    assertEquals(expected.getFormat_description(), actual.getFormat_description());
+    assertEquals(expected.getStreet(), actual.getStreet());
+    assertEquals(expected.getCity(), actual.getCity());
+    assertEquals(expected.getState(), actual.getState());
+    assertEquals(expected.getZip(), actual.getZip());
+    assertEquals(expected.getCountry(), actual.getCountry());
+    assertEquals(expected.getLatitude(), actual.getLatitude(), 0);
+    assertEquals(expected.getLongitude(), actual.getLongitude(), 0);
+  }
+}
@@ -0,0 +1,161 @@
+package com.salesforce.functions.recipes.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+
+import com.salesforce.functions.recipes.School;
+import com.salesforce.functions.recipes.SchoolsFixture;
+import com.salesforce.functions.recipes.search.Distances;
+import com.salesforce.functions.recipes.search.ParallelScan;
+import com.salesforce.functions.recipes.search.Ranking;
+import com.salesforce.functions.recipes.search.SchoolFilter;
+import com.salesforce.functions.recipes.search.SearchAfter;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Test;
+
+public class SchoolsDatasetTest {
+  private static final FileTime MODIFIED = FileTime.fromMillis(0);
+
+  @Test
+  public void testApplyMatchesRebuiltDataset() {
+    List<School> schools = SchoolsFixture.schools(5_000, 1);
+    SchoolsDataset dataset = new SchoolsDataset(schools, MODIFIED, 1, 1);
+
+    // Move some schools, remove others and add schools that were not there
+    List<School> moved = SchoolsFixture.schools(200, 2);
+    for (int i = 0; i < moved.size(); i++) {
+      School school = moved.get(i);
+      School original = schools.get(i * 20);
+      school.setName(original.getName());
+      school.setStreet(original.getStreet());
+      school.setZip(original.getZip());
+    }
+    List<School> removed = new ArrayList<>(schools.subList(4_000, 4_300));
+    List<School> added = SchoolsFixture.schools(100, 3);
+    for (School school : added) {
+      school.setName("New " + school.getName());
+    }
+    SchoolsDataset patched = dataset.apply(new SchoolsDelta(added, moved, removed));
+
+    assertSame(dataset.getIndex(), patched.getIndex());
+    assertNotEquals(dataset.getVersion(), patched.getVersion());
+    assertSameResults(rebuild(schools, added, moved, removed), patched);
+  }
+
+  @Test
+  public void testApplyOnPatchedDataset() {
+    List<School> schools = SchoolsFixture.schools(5_000, 1);
+    SchoolsDataset dataset = new SchoolsDataset(schools, MODIFIED, 1, 1);
+    List<School> added = SchoolsFixture.schools(100, 3);
+    for (School school : added) {
+      school.setName("New " + school.getName());
+    }
+    SchoolsDataset first = dataset.apply(new SchoolsDelta(added, null, null));
+
+    // Remove half of the schools added by the first delta and one read from disk
+    List<School> removed = new ArrayList<>(added.subList(0, 50));
+    removed.add(schools.get(7));
+    SchoolsDataset second = first.apply(new SchoolsDelta(null, null, removed));
+
+    assertSame(dataset.getIndex(), second.getIndex());
+    assertSameResults(rebuild(schools, added, List.of(), removed), second);
+  }
+
+  @Test
+  public void testApplyCompactsLargeDelta() {
+    List<School> schools = SchoolsFixture.schools(5_000, 1);
+    SchoolsDataset dataset = new SchoolsDataset(schools, MODIFIED, 1, 1);
+    List<School> added = SchoolsFixture.schools(2_000, 3);
+    for (School school : added) {
+      school.setName("New " + school.getName());
+    }
+    SchoolsDataset patched = dataset.apply(new SchoolsDelta(added, null, null));
+
+    assertNotEquals(dataset.getIndex(), patched.getIndex());
+    assertEquals(7_000, patched.getSchools().size());
+    assertSameResults(rebuild(schools, added, List.of(), List.of()), patched);
+  }
+
+  @Test
+  public void testApplyEmptyDelta() {
+    SchoolsDataset dataset = new SchoolsDataset(SchoolsFixture.schools(100, 1), MODIFIED, 1, 1);
+    assertSame(dataset, dataset.apply(new SchoolsDelta()));
+  }
+
+  @Test
+  public void testSearchAfterOnPatchedDataset() {
+    List<School> schools = SchoolsFixture.schools(5_000, 1);
+    List<School> added = SchoolsFixture.schools(300, 3);
+    for (School school : added) {
+      school.setName("New " + school.getName());
+    }
+    SchoolsDataset dataset = new SchoolsDataset(schools, MODIFIED, 1, 1)
+        .apply(new SchoolsDelta(added, null, schools.subList(0, 100)));
+    double latitude = 36.169090;
+    double longitude = -115.140579;
+    double[] origin = Distances.unitVector(latitude, longitude);
+    Ranking expected =
+        dataset.nearest(latitude, longitude, 200, SchoolFilter.NONE, ParallelScan.DISABLED);
+
+    SearchAfter after = null;
+    for (int start = 0; start < expected.size(); start += 9) {
+      Ranking page = dataset.nearest(latitude, longitude, 9, SchoolFilter.NONE, after,
+          ParallelScan.DISABLED);
+      for (int rank = 0; rank < page.size() && start + rank < expected.size(); rank++) {
+        assertEquals(expected.position(start + rank), page.position(rank));
+      }
+      int last = page.position(page.size() - 1);
+      School school = dataset.getSchools().get(last);
+      after = new SearchAfter(Distances.squaredChord(origin,
+          Distances.unitVector(school.getLatitude(), school.getLongitude())), last);
+    }
+  }
+
+  private SchoolsDataset rebuild(
+      List<School> schools, List<School> added, List<School> updated, List<School> removed) {
+    Map<String, School> byIdentity = new LinkedHashMap<>();
+    for (School school : schools) {
+      byIdentity.put(SchoolsDelta.identity(school), school);
+    }
+    for (School school : added) {
+      byIdentity.put(SchoolsDelta.identity(school), school);
+    }
+    for (School school : updated) {
+      byIdentity.put(SchoolsDelta.identity(school), school);
+    }
+    for (School school : removed) {
+      byIdentity.remove(SchoolsDelta.identity(school));
+    }
+    return new SchoolsDataset(new ArrayList<>(byIdentity.values()), MODIFIED, 1, 1);
+  }
+
+  private void assertSameResults(SchoolsDataset expected, SchoolsDataset actual) {
+    List<SchoolFilter> filters = List.of(
+        SchoolFilter.NONE,
+        new SchoolFilter(150.0, null, null, null, null),
+        new SchoolFilter(null, null, List.of("nv"), List.of("high"), null));
+    Random random = new Random(17);
+    for (SchoolFilter filter : filters) {
+      for (int query = 0; query < 50; query++) {
+        double latitude = 25 + random.nextDouble() * 24;
+        double longitude = -124 + random.nextDouble() * 57;
+        int k = 1 + random.nextInt(60);
+        Ranking left = expected.nearest(latitude, longitude, k, filter, ParallelScan.DISABLED);
+        Ranking right = actual.nearest(latitude, longitude, k, filter, ParallelScan.DISABLED);
+        assertEquals(left.size(), right.size());
+        for (int rank = 0; rank < left.size(); rank++) {
+          assertEquals(
+              SchoolsDelta.identity(expected.getSchools().get(left.position(rank))),
+              SchoolsDelta.identity(actual.getSchools().get(right.position(rank))));
+          assertEquals(left.key(rank), right.key(rank), 0);
+        }
+      }
+    }
+  }
+}
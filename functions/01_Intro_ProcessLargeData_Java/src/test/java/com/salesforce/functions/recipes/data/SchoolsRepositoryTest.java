@@ -0,0 +1,166 @@
+package com.salesforce.functions.recipes.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+
+import com.salesforce.functions.recipes.School;
+import com.salesforce.functions.recipes.SchoolsFixture;
+import com.salesforce.functions.recipes.search.ParallelScan;
+import com.salesforce.functions.recipes.search.SchoolFilter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SchoolsRepositoryTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void testLoadsOnce() throws Exception {
+    Path path = folder.newFile("schools.json").toPath();
+    SchoolsFixture.write(path, SchoolsFixture.schools(100, 1));
+    SchoolsRepository repository = new SchoolsRepository(path);
+
+    SchoolsDataset dataset = repository.get();
+    assertEquals(100, dataset.getSchools().size());
+    assertSame(dataset, repository.get());
+  }
+
+  @Test
+  public void testReloadsWhenContentChanges() throws Exception {
+    Path path = folder.newFile("schools.json").toPath();
+    SchoolsFixture.write(path, SchoolsFixture.schools(100, 1));
+    SchoolsRepository repository = new SchoolsRepository(path);
+    SchoolsDataset first = repository.get();
+
+    SchoolsFixture.write(path, SchoolsFixture.schools(50, 2));
+    Files.setLastModifiedTime(path, FileTime.fromMillis(first.getLastModified().toMillis() + 1000));
+
+    SchoolsDataset second = repository.get();
+    assertNotSame(first, second);
+    assertEquals(50, second.getSchools().size());
+    // The previous snapshot is left untouched for invocations still using it
+    assertEquals(100, first.getSchools().size());
+  }
+
+  @Test
+  public void testTouchKeepsSchools() throws Exception {
+    Path path = folder.newFile("schools.json").toPath();
+    SchoolsFixture.write(path, SchoolsFixture.schools(100, 1));
+    SchoolsRepository repository = new SchoolsRepository(path);
+    SchoolsDataset first = repository.get();
+
+    Files.setLastModifiedTime(path, FileTime.fromMillis(first.getLastModified().toMillis() + 1000));
+
+    SchoolsDataset second = repository.get();
+    assertNotSame(first, second);
+    assertSame(first.getSchools(), second.getSchools());
+  }
+
+  @Test
+  public void testAppliesDelta() throws Exception {
+    Path path = folder.newFile("schools.json").toPath();
+    List<School> schools = SchoolsFixture.schools(100, 1);
+    SchoolsFixture.write(path, schools);
+    SchoolsRepository repository = new SchoolsRepository(path);
+    SchoolsDataset first = repository.get();
+
+    Path delta = folder.getRoot().toPath().resolve("schools.delta.json");
+    writeDelta(delta, new SchoolsDelta(null, null, schools.subList(0, 10)));
+    SchoolsDataset second = repository.get();
+    assertNotSame(first, second);
+    assertSame(first.getIndex(), second.getIndex());
+    assertEquals(90, second.nearest(36.16, -115.14, 100, SchoolFilter.NONE,
+        ParallelScan.DISABLED).size());
+    assertSame(second, repository.get());
+
+    // Removing the change file goes back to the schools read from disk
+    Files.delete(delta);
+    SchoolsDataset third = repository.get();
+    assertSame(first, third);
+  }
+
+  @Test
+  public void testInvalidBinaryIgnored() throws Exception {
+    Path path = folder.newFile("schools.json").toPath();
+    SchoolsFixture.write(path, SchoolsFixture.schools(100, 1));
+    Path binary = folder.getRoot().toPath().resolve("schools.bin");
+    Files.write(binary, "not a schools binary file, only garbage".getBytes(StandardCharsets.UTF_8));
+
+    // The JSON file is parsed instead, and the binary file written again
+    SchoolsDataset dataset = new SchoolsRepository(path, binary, true).get();
+    assertEquals(100, dataset.getSchools().size());
+    assertEquals(100, SchoolsBinaryFormat.open(binary).schools().size());
+
+    // A header whose counts do not fit the file is ignored as well
+    byte[] truncated = Arrays.copyOf(Files.readAllBytes(binary), 1_000);
+    Files.write(binary, truncated);
+    assertThrows(IOException.class, () -> SchoolsBinaryFormat.open(binary));
+    assertEquals(100, new SchoolsRepository(path, binary, false).get().getSchools().size());
+  }
+
+  @Test
+  public void testCorruptStringIdIgnored() throws Exception {
+    Path path = folder.newFile("schools.json").toPath();
+    SchoolsFixture.write(path, SchoolsFixture.schools(100, 1));
+    Path binary = folder.getRoot().toPath().resolve("schools.bin");
+    SchoolsBinaryFormat.convert(path, binary);
+
+    // The name id of the first record, after the 44 byte header and both coordinate columns
+    ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(binary));
+    bytes.putInt(44 + 2 * 8 * 100, Integer.MAX_VALUE);
+    Files.write(binary, bytes.array());
+    assertThrows(IOException.class, () -> SchoolsBinaryFormat.open(binary));
+    SchoolsDataset dataset = new SchoolsRepository(path, binary, false).get();
+    assertEquals(SchoolsFixture.schools(1, 1).get(0).getName(),
+        dataset.getSchools().get(0).getName());
+  }
+
+  @Test
+  public void testBinaryMatchedWithoutChecksum() throws Exception {
+    Path path = folder.newFile("schools.json").toPath();
+    List<School> schools = SchoolsFixture.schools(100, 1);
+    SchoolsFixture.write(path, schools);
+    Path binary = folder.getRoot().toPath().resolve("schools.bin");
+    SchoolsBinaryFormat.convert(path, binary);
+
+    // Same size and modification time, the binary file is trusted without reading the JSON file
+    FileTime modified = Files.getLastModifiedTime(path);
+    String json = Files.readString(path);
+    String name = schools.get(0).getName();
+    String renamed = "X" + name.substring(1);
+    Files.writeString(path, json.replaceFirst(name, renamed));
+    Files.setLastModifiedTime(path, modified);
+    assertEquals(name, new SchoolsRepository(path, binary, false).get().getSchools().get(0)
+        .getName());
+
+    // Once the modification time differs the checksums are compared, and the JSON file wins
+    Files.setLastModifiedTime(path, FileTime.fromMillis(modified.toMillis() + 1000));
+    assertEquals(renamed, new SchoolsRepository(path, binary, false).get().getSchools().get(0)
+        .getName());
+
+    // A touched file with the same contents still uses the binary file
+    Files.writeString(path, json);
+    Files.setLastModifiedTime(path, FileTime.fromMillis(modified.toMillis() + 2000));
+    SchoolsDataset dataset = new SchoolsRepository(path, binary, false).get();
+    assertEquals(schools.get(99).getName(), dataset.getSchools().get(99).getName());
+  }
+
+  private static void writeDelta(Path path, SchoolsDelta delta) throws Exception {
+    try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+      SchoolsJson.GSON.toJson(delta, writer);
+    }
+  }
+}
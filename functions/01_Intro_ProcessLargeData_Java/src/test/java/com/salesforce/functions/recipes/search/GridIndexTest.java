@@ -0,0 +1,135 @@
+package com.salesforce.functions.recipes.search;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.salesforce.functions.recipes.School;
+import com.salesforce.functions.recipes.SchoolsFixture;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Test;
+
+public class GridIndexTest {
+
+  @Test
+  public void testFullDistanceRatioMatchesKdTree() {
+    Coordinates schools = Coordinates.of(SchoolsFixture.schools(20_000, 7));
+    KdTree tree = KdTree.build(schools);
+    GridIndex grid = GridIndex.build(schools);
+    Random random = new Random(11);
+    for (int query = 0; query < 200; query++) {
+      double latitude = 25 + random.nextDouble() * 24;
+      double longitude = -124 + random.nextDouble() * 57;
+      int k = 1 + random.nextInt(60);
+      Ranking expected = tree.nearest(latitude, longitude, k);
+      Ranking actual = grid.nearest(latitude, longitude, k, 1, SchoolFilter.NONE, null);
+      assertEquals(expected.size(), actual.size());
+      for (int rank = 0; rank < expected.size(); rank++) {
+        assertEquals(expected.position(rank), actual.position(rank));
+        assertEquals(expected.key(rank), actual.key(rank), 0);
+      }
+    }
+  }
+
+  @Test
+  public void testRecallGrowsWithDistanceRatio() {
+    Coordinates schools = Coordinates.of(SchoolsFixture.schools(20_000, 7));
+    KdTree tree = KdTree.build(schools);
+    GridIndex grid = GridIndex.build(schools);
+    double previous = 0;
+    for (double ratio : new double[] {0.1, 0.5, 0.9}) {
+      double measured = measuredRecall(tree, grid, ratio);
+      assertTrue(measured >= previous);
+      previous = measured;
+    }
+    // Even the lowest setting probes the cells around the point of origin
+    assertTrue(measuredRecall(tree, grid, 0.1) > 0.5);
+  }
+
+  @Test
+  public void testDistanceRatioBoundsDistance() {
+    Coordinates schools = Coordinates.of(SchoolsFixture.schools(20_000, 7));
+    KdTree tree = KdTree.build(schools);
+    GridIndex grid = GridIndex.build(schools);
+    Random random = new Random(17);
+    for (double ratio : new double[] {0.1, 0.25, 0.5, 0.75}) {
+      for (int query = 0; query < 200; query++) {
+        double latitude = 25 + random.nextDouble() * 24;
+        double longitude = -124 + random.nextDouble() * 57;
+        int k = 1 + random.nextInt(60);
+        Ranking exact = tree.nearest(latitude, longitude, k);
+        Ranking approximate = grid.nearest(latitude, longitude, k, ratio, SchoolFilter.NONE, null);
+        assertEquals(exact.size(), approximate.size());
+        double last = approximate.key(approximate.size() - 1);
+        // The last school returned is at most 1 / ratio times as far as the exact k-th one
+        assertTrue(ratio * last <= exact.key(exact.size() - 1) + 1e-9);
+        // And every school closer than ratio times its distance is returned
+        Set<Integer> returned = new HashSet<>();
+        for (int rank = 0; rank < approximate.size(); rank++) {
+          returned.add(approximate.position(rank));
+        }
+        for (int rank = 0; rank < exact.size() && exact.key(rank) < ratio * last - 1e-9; rank++) {
+          assertTrue(returned.contains(exact.position(rank)));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testFilteredMatchesBruteForce() {
+    List<School> list = SchoolsFixture.schools(5_000, 7);
+    Coordinates schools = Coordinates.of(list);
+    GridIndex grid = GridIndex.build(schools);
+    AttributeIndex attributes = AttributeIndex.build(list);
+    SchoolFilter filter = new SchoolFilter(300.0, null, List.of("nv", "az"), null, null);
+    Ranking ranking = grid.nearest(36.16, -115.14, 1_000, 1, filter, attributes.select(filter));
+    List<Integer> expected = new ArrayList<>();
+    for (int i = 0; i < list.size(); i++) {
+      School school = list.get(i);
+      double miles =
+          Distances.miles(36.16, -115.14, school.getLatitude(), school.getLongitude());
+      if (filter.matches(school) && miles <= 300) {
+        expected.add(i);
+      }
+    }
+    assertEquals(expected.size(), ranking.size());
+    for (int rank = 0; rank < ranking.size(); rank++) {
+      assertTrue(expected.contains(ranking.position(rank)));
+    }
+  }
+
+  @Test
+  public void testOriginOutsideGrid() {
+    Coordinates schools = Coordinates.of(SchoolsFixture.schools(1_000, 5));
+    GridIndex grid = GridIndex.build(schools);
+    Ranking expected = KdTree.build(schools).nearest(-33.86, 151.2, 5);
+    Ranking actual = grid.nearest(-33.86, 151.2, 5, 0.5, SchoolFilter.NONE, null);
+    assertEquals(expected.size(), actual.size());
+    Coordinates empty = Coordinates.of(new ArrayList<>());
+    assertEquals(0, GridIndex.build(empty).nearest(0, 0, 5, 0.5, SchoolFilter.NONE, null).size());
+  }
+
+  private double measuredRecall(KdTree tree, GridIndex grid, double ratio) {
+    Random random = new Random(13);
+    int found = 0;
+    int total = 0;
+    for (int query = 0; query < 200; query++) {
+      double latitude = 25 + random.nextDouble() * 24;
+      double longitude = -124 + random.nextDouble() * 57;
+      Ranking expected = tree.nearest(latitude, longitude, 20);
+      Set<Integer> actual = new HashSet<>();
+      Ranking approximate = grid.nearest(latitude, longitude, 20, ratio, SchoolFilter.NONE, null);
+      for (int rank = 0; rank < approximate.size(); rank++) {
+        actual.add(approximate.position(rank));
+      }
+      for (int rank = 0; rank < expected.size(); rank++) {
+        found += actual.contains(expected.position(rank)) ? 1 : 0;
+      }
+      total += expected.size();
+    }
+    return (double) found / total;
+  }
+}
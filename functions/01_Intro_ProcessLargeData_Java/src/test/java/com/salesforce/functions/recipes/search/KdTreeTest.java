@@ -0,0 +1,101 @@
+package com.salesforce.functions.recipes.search;
+
+import static org.junit.Assert.assertEquals;
+
+import com.salesforce.functions.recipes.School;
+import com.salesforce.functions.recipes.SchoolsFixture;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+public class KdTreeTest {
+
+  @Test
+  public void testMatchesLinearScan() {
+    Coordinates schools = Coordinates.of(SchoolsFixture.schools(20_000, 7));
+    KdTree tree = KdTree.build(schools);
+    Random random = new Random(11);
+    for (int query = 0; query < 200; query++) {
+      double latitude = 20 + random.nextDouble() * 35;
+      double longitude = -130 + random.nextDouble() * 70;
+      int k = 1 + random.nextInt(60);
+      assertSameRanking(
+          LinearScan.nearest(schools, latitude, longitude, k),
+          tree.nearest(latitude, longitude, k));
+    }
+  }
+
+  @Test
+  public void testDuplicatePositions() {
+    // Schools sharing a building tie on distance and must come back in dataset order
+    List<School> schools = new ArrayList<>(SchoolsFixture.schools(500, 3));
+    schools.addAll(SchoolsFixture.schools(500, 3));
+    KdTree tree = KdTree.build(Coordinates.of(schools));
+    School origin = schools.get(42);
+    assertSameRanking(
+        LinearScan.nearest(
+            Coordinates.of(schools), origin.getLatitude(), origin.getLongitude(), 10),
+        tree.nearest(origin.getLatitude(), origin.getLongitude(), 10));
+  }
+
+  @Test
+  public void testMoreThanDataset() {
+    Coordinates schools = Coordinates.of(SchoolsFixture.schools(40, 5));
+    assertEquals(40, KdTree.build(schools).nearest(36.16, -115.14, 100).size());
+    Coordinates empty = Coordinates.of(new ArrayList<>());
+    assertEquals(0, KdTree.build(empty).nearest(36.16, -115.14, 5).size());
+  }
+
+  @Test
+  public void testFilteredMatchesBruteForce() {
+    List<School> list = SchoolsFixture.schools(20_000, 7);
+    Coordinates schools = Coordinates.of(list);
+    KdTree tree = KdTree.build(schools);
+    AttributeIndex attributes = AttributeIndex.build(list);
+    List<SchoolFilter> filters = List.of(
+        new SchoolFilter(150.0, null, null, null, null),
+        new SchoolFilter(null, new BoundingBox(30, -120, 40, -100), null, null, null),
+        new SchoolFilter(null, null, List.of("nv"), null, null),
+        new SchoolFilter(400.0, null, List.of("CA", "OR"), List.of("high"), List.of("online")),
+        new SchoolFilter(0.0, null, null, null, null));
+    Random random = new Random(13);
+    for (SchoolFilter filter : filters) {
+      BitSet candidates = attributes.select(filter);
+      for (int query = 0; query < 50; query++) {
+        double latitude = 25 + random.nextDouble() * 24;
+        double longitude = -124 + random.nextDouble() * 57;
+        int k = query % 2 == 0 ? 1 + random.nextInt(60) : Integer.MAX_VALUE;
+        Ranking expected = bruteForce(list, latitude, longitude, k, filter);
+        Ranking actual = tree.nearest(latitude, longitude, k, filter, candidates);
+        assertEquals(expected.size(), actual.size());
+        for (int rank = 0; rank < expected.size(); rank++) {
+          assertEquals(expected.key(rank), actual.key(rank), 1e-9);
+        }
+      }
+    }
+  }
+
+  private Ranking bruteForce(
+      List<School> schools, double latitude, double longitude, int k, SchoolFilter filter) {
+    TopK topK = new TopK(k);
+    for (int i = 0; i < schools.size(); i++) {
+      School school = schools.get(i);
+      double miles =
+          Distances.miles(latitude, longitude, school.getLatitude(), school.getLongitude());
+      if (filter.matches(school) && miles <= filter.getRadius()) {
+        topK.offer(i, miles);
+      }
+    }
+    return topK.toRanking();
+  }
+
+  private void assertSameRanking(Ranking expected, Ranking actual) {
+    assertEquals(expected.size(), actual.size());
+    for (int rank = 0; rank < expected.size(); rank++) {
+      assertEquals(expected.position(rank), actual.position(rank));
+      assertEquals(expected.key(rank), actual.key(rank), 0);
+    }
+  }
+}
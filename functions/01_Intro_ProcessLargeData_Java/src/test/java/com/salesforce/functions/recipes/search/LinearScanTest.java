@@ -0,0 +1,58 @@
+package com.salesforce.functions.recipes.search;
+
+import static org.junit.Assert.assertEquals;
+
+import com.salesforce.functions.recipes.School;
+import com.salesforce.functions.recipes.SchoolsFixture;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.Test;
+
+public class LinearScanTest {
+
+  @Test
+  public void testMatchesTrigonometricDistance() {
+    List<School> schools = SchoolsFixture.schools(10_000, 4);
+    Coordinates coordinates = Coordinates.of(schools);
+    Random random = new Random(3);
+    for (int query = 0; query < 50; query++) {
+      double latitude = 20 + random.nextDouble() * 35;
+      double longitude = -130 + random.nextDouble() * 70;
+      int k = 1 + random.nextInt(100);
+
+      // Distance to every school with the trigonometric formula, sorted then limited
+      List<Double> expected =
+          IntStream.range(0, schools.size())
+              .mapToObj(
+                  i ->
+                      Distances.miles(
+                          latitude,
+                          longitude,
+                          schools.get(i).getLatitude(),
+                          schools.get(i).getLongitude()))
+              .sorted(Comparator.naturalOrder())
+              .limit(k)
+              .collect(Collectors.toList());
+
+      Ranking actual = LinearScan.nearest(coordinates, latitude, longitude, k);
+      assertEquals(expected.size(), actual.size());
+      for (int rank = 0; rank < expected.size(); rank++) {
+        assertEquals(expected.get(rank), actual.key(rank), 0.000001);
+      }
+    }
+  }
+
+  @Test
+  public void testSamePosition() {
+    List<School> schools = SchoolsFixture.schools(100, 4);
+    School school = schools.get(17);
+    Ranking ranking =
+        LinearScan.nearest(
+            Coordinates.of(schools), school.getLatitude(), school.getLongitude(), 1);
+    assertEquals(17, ranking.position(0));
+    assertEquals(0, ranking.key(0), 0);
+  }
+}
@@ -0,0 +1,40 @@
+package com.salesforce.functions.recipes.search;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.salesforce.functions.recipes.SchoolsFixture;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.Test;
+
+public class ParallelScanTest {
+
+  @Test
+  public void testMatchesLinearScan() {
+    Coordinates schools = Coordinates.of(SchoolsFixture.schools(60_000, 9));
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      ParallelScan parallelScan = new ParallelScan(pool, 1);
+      for (int k : new int[] {1, 10, 500, 60_000}) {
+        Ranking expected = LinearScan.nearest(schools, 36.169090, -115.140579, k);
+        Ranking actual = parallelScan.nearest(schools, 36.169090, -115.140579, k);
+        assertEquals(expected.size(), actual.size());
+        for (int rank = 0; rank < expected.size(); rank++) {
+          assertEquals(expected.position(rank), actual.position(rank));
+          assertEquals(expected.key(rank), actual.key(rank), 0);
+        }
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void testThreshold() {
+    Coordinates schools = Coordinates.of(SchoolsFixture.schools(100, 1));
+    assertTrue(new ParallelScan(ForkJoinPool.commonPool(), 100).accepts(schools));
+    assertFalse(new ParallelScan(ForkJoinPool.commonPool(), 101).accepts(schools));
+    assertFalse(ParallelScan.DISABLED.accepts(schools));
+  }
+}
@@ -0,0 +1,55 @@
+package com.salesforce.functions.recipes.search;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.IntStream;
+import org.junit.Test;
+
+public class TopKTest {
+
+  @Test
+  public void testMatchesStableSort() {
+    Random random = new Random(42);
+    // Few distinct values so there are plenty of ties
+    double[] keys = random.doubles(5_000).map(d -> Math.floor(d * 100)).toArray();
+    for (int k : new int[] {1, 5, 50, 2_000, 2_499, 2_500, 4_999, 5_000, 6_000}) {
+      Ranking ranking = TopK.select(keys, k);
+      int[] positions = new int[ranking.size()];
+      for (int rank = 0; rank < ranking.size(); rank++) {
+        positions[rank] = ranking.position(rank);
+        assertEquals(keys[positions[rank]], ranking.key(rank), 0);
+      }
+      assertArrayEquals("k=" + k, sortAndLimit(keys, k), positions);
+    }
+  }
+
+  @Test
+  public void testOfferOutOfOrder() {
+    TopK topK = new TopK(3);
+    for (int position : new int[] {9, 4, 7, 1, 8, 3}) {
+      topK.offer(position, position % 2);
+    }
+    Ranking ranking = topK.toRanking();
+    assertEquals(4, ranking.position(0));
+    assertEquals(8, ranking.position(1));
+    assertEquals(1, ranking.position(2));
+  }
+
+  @Test
+  public void testEmpty() {
+    assertEquals(0, TopK.select(new double[0], 5).size());
+    assertEquals(0, TopK.select(new double[] {1, 2, 3}, 0).size());
+  }
+
+  private int[] sortAndLimit(double[] keys, int k) {
+    return IntStream.range(0, keys.length)
+        .boxed()
+        .sorted(Comparator.comparingDouble(i -> keys[i]))
+        .limit(k)
+        .mapToInt(Integer::intValue)
+        .toArray();
+  }
+}
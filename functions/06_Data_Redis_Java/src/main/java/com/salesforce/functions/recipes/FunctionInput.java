@@ -2,6 +2,8 @@ package com.salesforce.functions.recipes;
 
 public class FunctionInput {
   private Integer limit = 5;
+  // Only read the last invocations, without adding this one
+  private boolean readOnly;
 
   public Integer getLimit() {
     return limit;
@@ -11,8 +13,16 @@ public class FunctionInput {
     this.limit = limit;
   }
 
+  public boolean isReadOnly() {
+    return readOnly;
+  }
+
+  public void setReadOnly(boolean readOnly) {
+    this.readOnly = readOnly;
+  }
+
   @Override
   public String toString() {
-    return "FunctionInput [limit=" + limit + "]";
+    return "FunctionInput [limit=" + limit + ", readOnly=" + readOnly + "]";
   }
 }
@@ -4,6 +4,7 @@ import com.salesforce.functions.jvm.sdk.Context;
 import com.salesforce.functions.jvm.sdk.InvocationEvent;
 import com.salesforce.functions.jvm.sdk.SalesforceFunction;
 import com.salesforce.functions.recipes.db.InvocationsManager;
+import com.salesforce.functions.recipes.db.RedisPool;
 import com.salesforce.functions.recipes.utils.Environment;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -15,6 +16,7 @@ import org.slf4j.LoggerFactory;
  * 2. Stores the last invocation time in Redis
  * 3. Adds the invocation ID to a list in Redis
  * 4. Returns the list of invocation IDs from Redis
+ * With readOnly set in the input, only the last step runs.
  */
 public class RedisJavaFunction implements SalesforceFunction<FunctionInput, Invocations> {
   private static final Logger LOGGER = LoggerFactory.getLogger(RedisJavaFunction.class);
@@ -24,20 +26,48 @@ public class RedisJavaFunction implements SalesforceFunction<FunctionInput, Invo
 
     LOGGER.info("Invoked with input: {}", event.getData());
 
-    try (InvocationsManager invocationsManager = new InvocationsManager(Environment.getDatabaseUrl())) {
+    // Connections are borrowed from a pool shared by every invocation and returned on close
+    String url = Environment.getDatabaseUrl();
+    try (InvocationsManager invocationsManager =
+        new InvocationsManager(url, namespace(Environment.getKeyNamespace(), context))) {
       Integer limit = event.getData().getLimit();
 
-      // Insert a new invocation to the "invocations" list
-      // Also set the last invocation ID and last invocation time
-      invocationsManager.addInvocation(context.getId());
-
-      // Query the "invocations" list for all the invocation IDs
-      Invocations invocations = invocationsManager.getInvocations(limit);
+      Invocations invocations;
+      if (event.getData().isReadOnly()) {
+        // Only query the "invocations" list, answered by the near cache within its TTL
+        invocations = invocationsManager.getInvocations(limit);
+      } else {
+        // Insert a new invocation to the "invocations" list
+        // Also set the last invocation ID and last invocation time
+        // Then query the "invocations" list for all the invocation IDs
+        // Both are pipelined, one round trip to Redis, two when the push creates the list
+        invocations = invocationsManager.addAndGetInvocations(context.getId(), limit);
+      }
       LOGGER.info("Retrieved {} invocations from the database", invocations.getInvocations().size());
       return invocations;
     } catch (Exception e) {
       LOGGER.error("Error while connecting to the database", e);
       throw e;
+    } finally {
+      if (LOGGER.isDebugEnabled()) {
+        LOGGER.debug("Redis pool {}", RedisPool.forUrl(url).stats());
+      }
+    }
+  }
+
+  /**
+   * Namespace of the Redis keys of an invocation.
+   *
+   * @param namespace Namespace from the environment, "org" for the invoking org's ID
+   * @param context Context of the invocation
+   * @return String Namespace, or null to share the keys with every invocation
+   */
+  static String namespace(String namespace, Context context) {
+    if (!"org".equalsIgnoreCase(namespace)) {
+      return namespace;
     }
+    return "org:" + context.getOrg()
+        .orElseThrow(() -> new IllegalStateException("REDIS_KEY_NAMESPACE is org without an org"))
+        .getId();
   }
 }
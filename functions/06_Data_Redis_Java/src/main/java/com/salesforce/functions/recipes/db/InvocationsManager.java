@@ -1,18 +1,19 @@
 package com.salesforce.functions.recipes.db;
 
-import javax.net.ssl.HostnameVerifier;
-import javax.net.ssl.SSLContext;
-import javax.net.ssl.TrustManager;
-import javax.net.ssl.X509TrustManager;
 import com.salesforce.functions.recipes.Invocations;
-import java.net.URI;
-import java.security.KeyManagementException;
-import java.security.NoSuchAlgorithmException;
-import java.security.cert.X509Certificate;
+import com.salesforce.functions.recipes.utils.Environment;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.function.Supplier;
+import redis.clients.jedis.BuilderFactory;
+import redis.clients.jedis.CommandArguments;
+import redis.clients.jedis.CommandObject;
 import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Protocol;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.exceptions.JedisDataException;
 import redis.clients.jedis.params.SetParams;
 
 /**
@@ -20,12 +21,56 @@ import redis.clients.jedis.params.SetParams;
  */
 public class InvocationsManager implements AutoCloseable {
   private final static long FIVE_MINUTES = 5 * 60;
-  private final String url;
+  private final RedisPool pool;
+  private final String invocationsKey;
+  private final String lastInvocationIdKey;
+  private final String lastInvocationTimeKey;
+  // Largest length of the invocations list, 0 when unbounded
+  private final long maxLength;
+  private final NearCache nearCache;
   private Jedis connection;
 
   public InvocationsManager(String url) {
-    this.url = url;
-    this.connection = getConnection();
+    this(url, null);
+  }
+
+  /**
+   * @param url The URL of the Redis instance.
+   * @param namespace Namespace of the keys, or null to share the keys with every invocation.
+   */
+  public InvocationsManager(String url, String namespace) {
+    this(RedisPool.forUrl(url), namespace, Environment.getInvocationsMaxLength(),
+        NearCache.forUrl(url));
+  }
+
+  public InvocationsManager(RedisPool pool) {
+    this(pool, null, 0);
+  }
+
+  /**
+   * @param pool Pool to borrow the connection from.
+   * @param namespace Namespace of the keys, or null to share the keys with every invocation.
+   * @param maxLength Largest number of invocation IDs kept in the list, 0 for no limit.
+   */
+  public InvocationsManager(RedisPool pool, String namespace, long maxLength) {
+    this(pool, namespace, maxLength, NearCache.DISABLED);
+  }
+
+  /**
+   * @param pool Pool to borrow the connection from.
+   * @param namespace Namespace of the keys, or null to share the keys with every invocation.
+   * @param maxLength Largest number of invocation IDs kept in the list, 0 for no limit.
+   * @param nearCache Cache of the invocations read, shared by the managers of the process.
+   */
+  public InvocationsManager(RedisPool pool, String namespace, long maxLength,
+      NearCache nearCache) {
+    this.pool = pool;
+    String prefix = namespace == null ? "" : namespace + ":";
+    this.invocationsKey = prefix + "invocations";
+    this.lastInvocationIdKey = prefix + "lastInvocationId";
+    this.lastInvocationTimeKey = prefix + "lastInvocationTime";
+    this.maxLength = maxLength;
+    this.nearCache = nearCache;
   }
 
   /**
@@ -34,79 +79,142 @@ public class InvocationsManager implements AutoCloseable {
    * @param id The invocation ID.
    */
   public void addInvocation(String id) {
-    connection.set("lastInvocationId", id, new SetParams().ex(FIVE_MINUTES));
-    LocalDateTime now = LocalDateTime.now();
-    DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-    String formattedDateTime = now.format(formatter);
-    connection.set("lastInvocationTime", formattedDateTime, new SetParams().ex(FIVE_MINUTES));
-
-    connection.lpush("invocations", id);
-
-    long ttl = connection.ttl("invocations");
-    if (ttl < 0) {
-      connection.expire("invocations", FIVE_MINUTES);
-
-    }
+    Pipeline pipeline = getConnection().pipelined();
+    Response<List<Object>> added = queueAdd(pipeline, id);
+    pipeline.sync();
+    checkExec(added);
   }
 
   /**
-   * Get the last invocations from the database.
+   * Get the last invocations from the database. With the near cache enabled, invocations read
+   * within its TTL are returned without a connection to Redis.
    *
    * @param limit The maximum number of invocations to return.
    * @return Invocations
    */
   public Invocations getInvocations(Integer limit) {
-    List<String> ids = connection.lrange("invocations", 0, limit - 1);
-    Invocations invocations = new Invocations();
-    invocations.setInvocations(ids);
-
-    String lastInvocationId = connection.get("lastInvocationId");
-    String lastInvocationTime = connection.get("lastInvocationTime");
+    Invocations cached = nearCache.get(invocationsKey, limit);
+    if (cached != null) {
+      return cached;
+    }
+    // Taken before the read, so a write of the process in between keeps it out of the cache
+    long stamp = nearCache.stamp();
+    Pipeline pipeline = getConnection().pipelined();
+    Supplier<Invocations> invocations = queueGet(pipeline, limit);
+    pipeline.sync();
+    Invocations read = invocations.get();
+    nearCache.put(invocationsKey, limit, read, stamp);
+    return read;
+  }
 
-    invocations.setLastInvocationId(lastInvocationId);
-    invocations.setLastInvocationTime(lastInvocationTime);
-    return invocations;
+  /**
+   * Add an invocation and get the last invocations, including it, in a single round trip.
+   *
+   * @param id The invocation ID.
+   * @param limit The maximum number of invocations to return.
+   * @return Invocations
+   */
+  public Invocations addAndGetInvocations(String id, Integer limit) {
+    Pipeline pipeline = getConnection().pipelined();
+    Response<List<Object>> added = queueAdd(pipeline, id);
+    Supplier<Invocations> invocations = queueGet(pipeline, limit);
+    pipeline.sync();
+    long stamp = checkExec(added);
+    // Read right after the write, so the cache starts over from it
+    Invocations read = invocations.get();
+    nearCache.put(invocationsKey, limit, read, stamp);
+    return read;
   }
 
   /**
-   * Get a connection to the Redis database.
+   * Queue the commands adding an invocation. They are wrapped in MULTI/EXEC, sent in the same
+   * pipeline rather than with Jedis transactions, which wait for the QUEUED replies before sending
+   * EXEC, so the list is trimmed in the same step as the push. The TTL of the list is read in the
+   * same transaction, EXPIRE NX would save it but needs Redis 7.0 or later.
    *
-   * @return Jedis
+   * @return Response<List<Object>> Reply of EXEC
    */
-  protected Jedis getConnection() {
-    if (connection != null && connection.isConnected()) {
-      return connection;
+  private Response<List<Object>> queueAdd(Pipeline pipeline, String id) {
+    pipeline.sendCommand(new CommandArguments(Protocol.Command.MULTI));
+    pipeline.set(lastInvocationIdKey, id, new SetParams().ex(FIVE_MINUTES));
+    pipeline.set(lastInvocationTimeKey, now(), new SetParams().ex(FIVE_MINUTES));
+
+    pipeline.lpush(invocationsKey, id);
+    if (maxLength > 0) {
+      pipeline.ltrim(invocationsKey, 0, maxLength - 1);
     }
+    pipeline.ttl(invocationsKey);
+    return pipeline.appendCommand(new CommandObject<>(
+        new CommandArguments(Protocol.Command.EXEC), BuilderFactory.RAW_OBJECT_LIST));
+  }
 
-    try {
-      TrustManager bogusTrustManager = new X509TrustManager() {
-        public X509Certificate[] getAcceptedIssuers() {
-          return null;
-        }
-
-        public void checkClientTrusted(X509Certificate[] certs, String authType) {}
-
-        public void checkServerTrusted(X509Certificate[] certs, String authType) {}
-      };
+  private static String now() {
+    LocalDateTime now = LocalDateTime.now();
+    DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    return now.format(formatter);
+  }
 
-      SSLContext sslContext = SSLContext.getInstance("SSL");
-      sslContext.init(null, new TrustManager[] {bogusTrustManager},
-          new java.security.SecureRandom());
+  /**
+   * Throw the error of the transaction adding an invocation, the replies of its queued commands are
+   * only QUEUED. Then give the list its TTL if it has none, as when the push created it, in a
+   * second round trip. The near cache drops the invocations it held.
+   *
+   * @return long Stamp to cache a read of the invocations sent after the transaction with
+   */
+  private long checkExec(Response<List<Object>> exec) {
+    long stamp = nearCache.invalidate(invocationsKey);
+    // Aborted transactions throw here, the others hold the error of each command that failed
+    List<Object> replies = exec.get();
+    for (Object reply : replies) {
+      if (reply instanceof JedisDataException) {
+        throw (JedisDataException) reply;
+      }
+    }
+    // The last reply is the TTL of the list, -1 without one
+    if ((Long) replies.get(replies.size() - 1) < 0) {
+      getConnection().expire(invocationsKey, FIVE_MINUTES);
+    }
+    return stamp;
+  }
 
-      HostnameVerifier bogusHostnameVerifier = (hostname, session) -> true;
+  /**
+   * Queue the commands reading the last invocations, their result is available after sync.
+   */
+  private Supplier<Invocations> queueGet(Pipeline pipeline, Integer limit) {
+    Response<List<String>> ids = pipeline.lrange(invocationsKey, 0, limit - 1);
+    Response<String> lastInvocationId = pipeline.get(lastInvocationIdKey);
+    Response<String> lastInvocationTime = pipeline.get(lastInvocationTimeKey);
+    return () -> {
+      Invocations invocations = new Invocations();
+      invocations.setInvocations(ids.get());
+      invocations.setLastInvocationId(lastInvocationId.get());
+      invocations.setLastInvocationTime(lastInvocationTime.get());
+      return invocations;
+    };
+  }
 
-      connection = new Jedis(URI.create(this.url), sslContext.getSocketFactory(),
-          sslContext.getDefaultSSLParameters(), bogusHostnameVerifier);
+  /**
+   * Get a connection to the Redis database, borrowed from the pool on first use.
+   *
+   * @return Jedis
+   */
+  protected Jedis getConnection() {
+    if (connection != null && connection.isConnected()) {
       return connection;
-    } catch (NoSuchAlgorithmException | KeyManagementException e) {
-      throw new RuntimeException(e);
     }
+    connection = pool.getResource();
+    return connection;
   }
 
+  /**
+   * Return the connection to the pool.
+   */
   @Override
   public void close() {
-    if (connection != null && connection.isConnected()) {
+    if (connection != null) {
+      // A connection broken by an error is closed by the pool instead of being reused
       connection.close();
+      connection = null;
     }
   }
 }
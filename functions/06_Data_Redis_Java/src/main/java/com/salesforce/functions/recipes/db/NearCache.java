@@ -0,0 +1,155 @@
+package com.salesforce.functions.recipes.db;
+
+import com.salesforce.functions.recipes.Invocations;
+import com.salesforce.functions.recipes.utils.Environment;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Invocations read from a Redis instance, the list and the last invocation ID and time, kept in
+ * the process for a short time so repeated reads skip the round trip to Redis. A cached read is at
+ * most the TTL older than Redis: writes of other processes are only seen once it expires, while
+ * writes of this process replace or drop it at once.
+ *
+ * <p>Every write of the process moves the cache to a new generation. A read is only kept if no
+ * write happened since the stamp taken before sending it, so a read racing with a write cannot put
+ * back the invocations the write replaced.
+ */
+public class NearCache {
+  /**
+   * A cache that never holds anything, every read goes to Redis.
+   */
+  static final NearCache DISABLED = new NearCache(Duration.ZERO);
+
+  private static final Map<String, NearCache> CACHES = new ConcurrentHashMap<>();
+
+  private final long ttlNanos;
+  private final LongSupplier nanoTime;
+  private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+  private final AtomicLong generation = new AtomicLong();
+
+  NearCache(Duration ttl) {
+    this(ttl, System::nanoTime);
+  }
+
+  /**
+   * @param ttl How long a read is kept, zero to disable the cache.
+   * @param nanoTime Clock the TTL is measured with.
+   */
+  NearCache(Duration ttl, LongSupplier nanoTime) {
+    this.ttlNanos = ttl.toNanos();
+    this.nanoTime = nanoTime;
+  }
+
+  /**
+   * Get the cache of a Redis instance, created on first use with the TTL of the environment.
+   *
+   * @param url The URL of the Redis instance.
+   * @return NearCache
+   */
+  public static NearCache forUrl(String url) {
+    return CACHES.computeIfAbsent(url, key -> new NearCache(Environment.getNearCacheTtl()));
+  }
+
+  /**
+   * Whether reads are kept at all.
+   *
+   * @return boolean
+   */
+  public boolean isEnabled() {
+    return ttlNanos > 0;
+  }
+
+  /**
+   * Stamp to take before sending the read to put.
+   *
+   * @return long The current generation
+   */
+  public long stamp() {
+    return generation.get();
+  }
+
+  /**
+   * Get the last invocations of a list, unless the cached read expired. A read with a larger
+   * limit, or one that got the whole list, answers smaller limits too.
+   *
+   * @param key The key of the invocations list.
+   * @param limit The maximum number of invocations to return.
+   * @return Invocations A copy of the cached invocations, or null on a miss
+   */
+  public Invocations get(String key, int limit) {
+    Entry entry = entries.get(key);
+    if (limit <= 0 || entry == null || entry.isExpired(nanoTime.getAsLong())) {
+      return null;
+    }
+    if (entry.limit < limit && entry.ids.size() == entry.limit) {
+      return null;
+    }
+    Invocations invocations = new Invocations();
+    invocations.setInvocations(entry.ids.subList(0, Math.min(limit, entry.ids.size())));
+    invocations.setLastInvocationId(entry.lastInvocationId);
+    invocations.setLastInvocationTime(entry.lastInvocationTime);
+    return invocations;
+  }
+
+  /**
+   * Keep invocations read from Redis, unless the process wrote since the stamp was taken.
+   *
+   * @param key The key of the invocations list.
+   * @param limit The maximum number of invocations read.
+   * @param invocations The invocations read.
+   * @param stamp The stamp taken before the read was sent, or returned by the write it follows.
+   */
+  public void put(String key, int limit, Invocations invocations, long stamp) {
+    if (!isEnabled() || limit <= 0 || generation.get() != stamp) {
+      return;
+    }
+    long now = nanoTime.getAsLong();
+    // Only reads of the last TTL are kept, so namespaces no longer read do not pile up
+    entries.values().removeIf(entry -> entry.isExpired(now));
+    Entry entry = new Entry(limit, List.copyOf(invocations.getInvocations()),
+        invocations.getLastInvocationId(), invocations.getLastInvocationTime(), now + ttlNanos);
+    entries.put(key, entry);
+    // A write between the check and the put may have missed this entry
+    if (generation.get() != stamp) {
+      entries.remove(key, entry);
+    }
+  }
+
+  /**
+   * Drop the invocations of a list after the process changed it, and any read still in flight.
+   *
+   * @param key The key of the invocations list.
+   * @return long The stamp to put a read following the write with
+   */
+  public long invalidate(String key) {
+    long stamp = generation.incrementAndGet();
+    entries.remove(key);
+    return stamp;
+  }
+
+  private static final class Entry {
+    private final int limit;
+    private final List<String> ids;
+    private final String lastInvocationId;
+    private final String lastInvocationTime;
+    private final long expiresAt;
+
+    Entry(int limit, List<String> ids, String lastInvocationId, String lastInvocationTime,
+        long expiresAt) {
+      this.limit = limit;
+      this.ids = ids;
+      this.lastInvocationId = lastInvocationId;
+      this.lastInvocationTime = lastInvocationTime;
+      this.expiresAt = expiresAt;
+    }
+
+    boolean isExpired(long now) {
+      return now - expiresAt >= 0;
+    }
+  }
+}
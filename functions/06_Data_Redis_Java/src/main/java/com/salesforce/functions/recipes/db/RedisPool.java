@@ -0,0 +1,145 @@
+package com.salesforce.functions.recipes.db;
+
+import com.salesforce.functions.recipes.utils.Environment;
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+
+/**
+ * A pool of Redis connections shared by every invocation of the process, so invocations reuse
+ * open TCP and TLS connections instead of opening one each.
+ */
+public class RedisPool implements AutoCloseable {
+  private static final Map<String, RedisPool> POOLS = new ConcurrentHashMap<>();
+
+  private final JedisPool pool;
+
+  RedisPool(String url, GenericObjectPoolConfig<Jedis> config) {
+    this(url, config, RedisTls.getDefault());
+  }
+
+  RedisPool(String url, GenericObjectPoolConfig<Jedis> config, RedisTls tls) {
+    // Only used with a rediss:// URL, every pool shares the TLS session cache
+    this.pool = new JedisPool(config, URI.create(url), tls.getSocketFactory(),
+        tls.getParameters(), tls.getHostnameVerifier());
+  }
+
+  /**
+   * Get the pool of a Redis instance, created on first use with the settings of the environment.
+   *
+   * @param url The URL of the Redis instance.
+   * @return RedisPool
+   */
+  public static RedisPool forUrl(String url) {
+    return POOLS.computeIfAbsent(url, key -> new RedisPool(key, getConfig()));
+  }
+
+  /**
+   * Pool settings from the REDIS_POOL_* environment variables.
+   *
+   * @return GenericObjectPoolConfig<Jedis>
+   */
+  static GenericObjectPoolConfig<Jedis> getConfig() {
+    GenericObjectPoolConfig<Jedis> config = new GenericObjectPoolConfig<>();
+    config.setMaxTotal(Environment.getPoolMaxTotal());
+    config.setMaxIdle(Environment.getPoolMaxTotal());
+    config.setMinIdle(Math.min(Environment.getPoolMinIdle(), Environment.getPoolMaxTotal()));
+    config.setMaxWait(Environment.getPoolMaxWait());
+    config.setTestOnBorrow(Environment.isPoolTestOnBorrow());
+    // The evictor also pings idle connections, and closes those idle for too long
+    config.setTestWhileIdle(true);
+    config.setMinEvictableIdleTime(Environment.getPoolIdleTimeout());
+    config.setTimeBetweenEvictionRuns(Environment.getPoolEvictionInterval());
+    // The counters of Stats are also registered as an MBean
+    config.setJmxNamePrefix("redis");
+    return config;
+  }
+
+  /**
+   * Borrow a connection, closing it returns it to the pool.
+   *
+   * @return Jedis
+   */
+  public Jedis getResource() {
+    return pool.getResource();
+  }
+
+  /**
+   * Counters to size the pool with.
+   *
+   * @return Stats
+   */
+  public Stats stats() {
+    return new Stats(pool.getNumActive(), pool.getNumIdle(), pool.getNumWaiters(),
+        pool.getCreatedCount(), pool.getDestroyedCount(), pool.getBorrowedCount(),
+        pool.getMeanBorrowWaitTimeMillis());
+  }
+
+  @Override
+  public void close() {
+    POOLS.values().remove(this);
+    pool.close();
+  }
+
+  /**
+   * Snapshot of the pool's connections and of its counters since it was created.
+   */
+  public static final class Stats {
+    private final int active;
+    private final int idle;
+    private final int waiters;
+    private final long created;
+    private final long destroyed;
+    private final long borrowed;
+    private final long meanBorrowWaitMillis;
+
+    Stats(int active, int idle, int waiters, long created, long destroyed, long borrowed,
+        long meanBorrowWaitMillis) {
+      this.active = active;
+      this.idle = idle;
+      this.waiters = waiters;
+      this.created = created;
+      this.destroyed = destroyed;
+      this.borrowed = borrowed;
+      this.meanBorrowWaitMillis = meanBorrowWaitMillis;
+    }
+
+    public int getActive() {
+      return active;
+    }
+
+    public int getIdle() {
+      return idle;
+    }
+
+    public int getWaiters() {
+      return waiters;
+    }
+
+    public long getCreated() {
+      return created;
+    }
+
+    public long getDestroyed() {
+      return destroyed;
+    }
+
+    public long getBorrowed() {
+      return borrowed;
+    }
+
+    public long getMeanBorrowWaitMillis() {
+      return meanBorrowWaitMillis;
+    }
+
+    @Override
+    public String toString() {
+      return "Stats [active=" + active + ", idle=" + idle + ", waiters=" + waiters + ", created="
+          + created + ", destroyed=" + destroyed + ", borrowed=" + borrowed
+          + ", meanBorrowWaitMillis=" + meanBorrowWaitMillis + "]";
+    }
+  }
+}
@@ -0,0 +1,137 @@
+package com.salesforce.functions.recipes.db;
+
+import javax.net.ssl.HostnameVerifier;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLSocketFactory;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.TrustManagerFactory;
+import javax.net.ssl.X509TrustManager;
+import com.salesforce.functions.recipes.utils.Environment;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+
+/**
+ * TLS settings of the Redis connections, created once per process. Every connection shares the
+ * same SSLContext, so reconnecting to the same Redis instance resumes the TLS session of a previous
+ * connection from its client session cache instead of running a full handshake.
+ *
+ * <p>Without a trust store, any certificate is trusted and host names are not verified, as the
+ * self-signed certificates of Heroku Data for Redis require. With a trust store, the server's
+ * certificate has to chain to one of its certificates and match the host name of the URL.
+ */
+public class RedisTls {
+  private static volatile RedisTls defaultTls;
+
+  private final SSLContext sslContext;
+  private final boolean verified;
+
+  /**
+   * @param trustStore Trust store the server's certificate is verified with, or null to trust any
+   *     certificate.
+   * @param sessionTimeout How long a TLS session can be resumed.
+   */
+  RedisTls(KeyStore trustStore, Duration sessionTimeout) {
+    try {
+      TrustManager[] trustManagers;
+      if (trustStore == null) {
+        trustManagers = new TrustManager[] {new X509TrustManager() {
+          public X509Certificate[] getAcceptedIssuers() {
+            return new X509Certificate[0];
+          }
+
+          public void checkClientTrusted(X509Certificate[] certs, String authType) {}
+
+          public void checkServerTrusted(X509Certificate[] certs, String authType) {}
+        }};
+      } else {
+        TrustManagerFactory factory =
+            TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        factory.init(trustStore);
+        trustManagers = factory.getTrustManagers();
+      }
+      sslContext = SSLContext.getInstance("TLS");
+      sslContext.init(null, trustManagers, null);
+      sslContext.getClientSessionContext().setSessionTimeout((int) sessionTimeout.toSeconds());
+      verified = trustStore != null;
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("Cannot initialize TLS for Redis", e);
+    }
+  }
+
+  /**
+   * Get the TLS settings of the environment, created on first use.
+   *
+   * @return RedisTls
+   */
+  public static RedisTls getDefault() {
+    if (defaultTls == null) {
+      synchronized (RedisTls.class) {
+        if (defaultTls == null) {
+          defaultTls = new RedisTls(loadTrustStore(Environment.getTlsTrustStore(),
+              Environment.getTlsTrustStoreType(), Environment.getTlsTrustStorePassword()),
+              Environment.getTlsSessionTimeout());
+        }
+      }
+    }
+    return defaultTls;
+  }
+
+  /**
+   * Load a trust store.
+   *
+   * @param path Path of the trust store, or null for none.
+   * @param type Key store type, for example PKCS12 or JKS.
+   * @param password Password of the trust store, or null for none.
+   * @return KeyStore The trust store, or null when the path is null.
+   */
+  static KeyStore loadTrustStore(Path path, String type, String password) {
+    if (path == null) {
+      return null;
+    }
+    try (InputStream in = Files.newInputStream(path)) {
+      KeyStore trustStore = KeyStore.getInstance(type);
+      trustStore.load(in, password == null ? null : password.toCharArray());
+      return trustStore;
+    } catch (IOException | GeneralSecurityException e) {
+      throw new IllegalStateException("Cannot load the Redis trust store " + path, e);
+    }
+  }
+
+  /**
+   * Socket factory shared by every connection, and with it the TLS session cache.
+   *
+   * @return SSLSocketFactory
+   */
+  public SSLSocketFactory getSocketFactory() {
+    return sslContext.getSocketFactory();
+  }
+
+  /**
+   * TLS parameters of a new connection, verifying the server's host name with a trust store.
+   *
+   * @return SSLParameters
+   */
+  public SSLParameters getParameters() {
+    SSLParameters parameters = sslContext.getDefaultSSLParameters();
+    if (verified) {
+      parameters.setEndpointIdentificationAlgorithm("HTTPS");
+    }
+    return parameters;
+  }
+
+  /**
+   * Host name verifier of a new connection, null when the TLS parameters already verify it.
+   *
+   * @return HostnameVerifier
+   */
+  public HostnameVerifier getHostnameVerifier() {
+    return verified ? null : (hostname, session) -> true;
+  }
+}
@@ -1,5 +1,8 @@
 package com.salesforce.functions.recipes.utils;
 
+import java.nio.file.Path;
+import java.time.Duration;
+
 /**
  * This class contains the environment variables used by the Function.
  */
@@ -16,4 +19,156 @@ public class Environment {
     }
     return databaseUrl;
   }
-}
\ No newline at end of file
+
+  /**
+   * Largest number of invocation IDs kept in the invocations list, from the
+   * REDIS_INVOCATIONS_MAX_LENGTH environment variable. Older IDs are trimmed when a new one is
+   * pushed.
+   *
+   * @return long Number of IDs, 0 (the default) keeps every ID until the list expires
+   */
+  public static long getInvocationsMaxLength() {
+    return getNumber("REDIS_INVOCATIONS_MAX_LENGTH", 0, 0);
+  }
+
+  /**
+   * Namespace of the Redis keys, from the REDIS_KEY_NAMESPACE environment variable. "org" keeps
+   * the keys of each invoking org apart, any other value is used as the namespace itself, for
+   * example the name of the function sharing a Redis instance with others.
+   *
+   * @return String Namespace, or null when unset so every invocation shares the same keys
+   */
+  public static String getKeyNamespace() {
+    String namespace = System.getenv("REDIS_KEY_NAMESPACE");
+    return namespace == null || namespace.isBlank() ? null : namespace.trim();
+  }
+
+  /**
+   * How long the invocations read from Redis are kept in the process, from the
+   * REDIS_NEAR_CACHE_TTL environment variable in milliseconds. It bounds how stale a read can be.
+   *
+   * @return Duration 0 (the default) disables the cache
+   */
+  public static Duration getNearCacheTtl() {
+    return Duration.ofMillis(getNumber("REDIS_NEAR_CACHE_TTL", 0, 0));
+  }
+
+  /**
+   * Largest number of Redis connections open at once, from the REDIS_POOL_MAX_TOTAL environment
+   * variable. Invocations wait for a connection to be returned past it.
+   *
+   * @return int Number of connections, 8 by default
+   */
+  public static int getPoolMaxTotal() {
+    return (int) getNumber("REDIS_POOL_MAX_TOTAL", 8, 1);
+  }
+
+  /**
+   * Number of idle Redis connections kept open, from the REDIS_POOL_MIN_IDLE environment variable.
+   * The evictor opens connections up to it, so they are ready before invocations arrive.
+   *
+   * @return int Number of connections, 1 by default
+   */
+  public static int getPoolMinIdle() {
+    return (int) getNumber("REDIS_POOL_MIN_IDLE", 1, 0);
+  }
+
+  /**
+   * Whether a pooled connection is checked with a PING before it is handed out, from the
+   * REDIS_POOL_TEST_ON_BORROW environment variable. Connections closed by the server are then
+   * replaced instead of failing the invocation.
+   *
+   * @return boolean true by default
+   */
+  public static boolean isPoolTestOnBorrow() {
+    String test = System.getenv("REDIS_POOL_TEST_ON_BORROW");
+    return test == null || test.isBlank() || Boolean.parseBoolean(test.trim());
+  }
+
+  /**
+   * How long a Redis connection may stay idle before the evictor closes it, from the
+   * REDIS_POOL_IDLE_TIMEOUT environment variable in seconds. Connections under
+   * REDIS_POOL_MIN_IDLE are kept.
+   *
+   * @return Duration 5 minutes by default
+   */
+  public static Duration getPoolIdleTimeout() {
+    return Duration.ofSeconds(getNumber("REDIS_POOL_IDLE_TIMEOUT", 300, 1));
+  }
+
+  /**
+   * How often the evictor checks idle Redis connections, from the REDIS_POOL_EVICTION_INTERVAL
+   * environment variable in seconds. 0 disables the evictor.
+   *
+   * @return Duration 30 seconds by default
+   */
+  public static Duration getPoolEvictionInterval() {
+    return Duration.ofSeconds(getNumber("REDIS_POOL_EVICTION_INTERVAL", 30, 0));
+  }
+
+  /**
+   * How long an invocation waits for a Redis connection when every one is in use, from the
+   * REDIS_POOL_MAX_WAIT environment variable in milliseconds.
+   *
+   * @return Duration 2 seconds by default
+   */
+  public static Duration getPoolMaxWait() {
+    return Duration.ofMillis(getNumber("REDIS_POOL_MAX_WAIT", 2_000, 0));
+  }
+
+  /**
+   * Trust store the Redis server's certificate is verified with, from the REDIS_TLS_TRUST_STORE
+   * environment variable.
+   *
+   * @return Path Path of the trust store, or null when unset so any certificate is trusted
+   */
+  public static Path getTlsTrustStore() {
+    String trustStore = System.getenv("REDIS_TLS_TRUST_STORE");
+    return trustStore == null || trustStore.isBlank() ? null : Path.of(trustStore.trim());
+  }
+
+  /**
+   * Type of the trust store, from the REDIS_TLS_TRUST_STORE_TYPE environment variable.
+   *
+   * @return String PKCS12 by default
+   */
+  public static String getTlsTrustStoreType() {
+    String type = System.getenv("REDIS_TLS_TRUST_STORE_TYPE");
+    return type == null || type.isBlank() ? "PKCS12" : type.trim();
+  }
+
+  /**
+   * Password of the trust store, from the REDIS_TLS_TRUST_STORE_PASSWORD environment variable.
+   *
+   * @return String Password, or null when unset
+   */
+  public static String getTlsTrustStorePassword() {
+    return System.getenv("REDIS_TLS_TRUST_STORE_PASSWORD");
+  }
+
+  /**
+   * How long a TLS session with Redis can be resumed by a new connection, from the
+   * REDIS_TLS_SESSION_TIMEOUT environment variable in seconds.
+   *
+   * @return Duration 1 day by default
+   */
+  public static Duration getTlsSessionTimeout() {
+    return Duration.ofSeconds(getNumber("REDIS_TLS_SESSION_TIMEOUT", 86_400, 0));
+  }
+
+  private static long getNumber(String name, long defaultValue, long min) {
+    String value = System.getenv(name);
+    if (value == null || value.isBlank()) {
+      return defaultValue;
+    }
+    try {
+      long number = Long.parseLong(value.trim());
+      if (number < min) {
+        throw new NumberFormatException(value);
+      }
+      return number;
+    } catch (NumberFormatException e) {
+      throw new IllegalStateException(name + " must be a number of at least " + min, e);
+    }
+  }
+}
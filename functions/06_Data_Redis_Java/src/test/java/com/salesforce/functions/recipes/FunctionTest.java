@@ -1,21 +1,26 @@
 package com.salesforce.functions.recipes;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.mockConstruction;
 import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
 import org.junit.Test;
 import org.mockito.MockedConstruction;
 import org.mockito.MockedStatic;
 import com.salesforce.functions.jvm.sdk.Context;
 import com.salesforce.functions.jvm.sdk.InvocationEvent;
+import com.salesforce.functions.jvm.sdk.Org;
 import com.salesforce.functions.recipes.db.InvocationsManager;
 import com.salesforce.functions.recipes.utils.Environment;
 
@@ -41,15 +46,14 @@ public class FunctionTest {
             }
           });
 
-          verify(mock, times(1)).addInvocation(INVOCATION_ID);
-          verify(mock, times(1)).getInvocations(input.getLimit());
+          verify(mock, times(1)).addAndGetInvocations(INVOCATION_ID, input.getLimit());
 
-          // Setup getInvocations Mock
+          // Setup addAndGetInvocations Mock
           Invocations invocations = new Invocations();
           invocations.setInvocations(INVOCATIONS);
           invocations.setLastInvocationId(INVOCATION_ID);
           invocations.setLastInvocationTime("2022-11-24 00:00:00");
-          when(mock.getInvocations(2)).thenReturn(invocations);
+          when(mock.addAndGetInvocations(INVOCATION_ID, 2)).thenReturn(invocations);
 
           // Invoke Function
           Invocations result = function.apply(createEventMock(input), createContextMock());
@@ -60,6 +64,27 @@ public class FunctionTest {
     }
   }
 
+  @Test
+  public void testReadOnly() throws Exception {
+    FunctionInput input = new FunctionInput();
+    input.setLimit(2);
+    input.setReadOnly(true);
+    Invocations invocations = new Invocations();
+    invocations.setInvocations(INVOCATIONS);
+    invocations.setLastInvocationId(INVOCATION_ID);
+
+    try (MockedStatic<Environment> mockEnvironment = mockStatic(Environment.class);
+        MockedConstruction<InvocationsManager> mocked = mockConstruction(InvocationsManager.class,
+            (mock, context) -> when(mock.getInvocations(2)).thenReturn(invocations))) {
+      mockEnvironment.when(Environment::getDatabaseUrl).thenReturn("redis://localhost:6379");
+      Invocations result =
+          new RedisJavaFunction().apply(createEventMock(input), createContextMock());
+      assertEquals(INVOCATIONS, result.getInvocations());
+      // Only read, the invocation itself is not added
+      verify(mocked.constructed().get(0), never()).addAndGetInvocations(any(), any());
+    }
+  }
+
   @Test
   public void testNoUrl() {
     RedisJavaFunction function = new RedisJavaFunction();
@@ -98,6 +123,19 @@ public class FunctionTest {
     });
   }
 
+  @Test
+  public void testNamespace() {
+    Context context = createContextMock();
+    assertNull(RedisJavaFunction.namespace(null, context));
+    assertEquals("recipes", RedisJavaFunction.namespace("recipes", context));
+    assertThrows(IllegalStateException.class, () -> RedisJavaFunction.namespace("org", context));
+
+    Org org = mock(Org.class);
+    when(org.getId()).thenReturn("00D000000000001");
+    when(context.getOrg()).thenReturn(Optional.of(org));
+    assertEquals("org:00D000000000001", RedisJavaFunction.namespace("org", context));
+  }
+
   /**
    * Creates a mock for Context
    *
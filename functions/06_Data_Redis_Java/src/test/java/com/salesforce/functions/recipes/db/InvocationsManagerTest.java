@@ -0,0 +1,270 @@
+package com.salesforce.functions.recipes.db;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import com.salesforce.functions.recipes.Invocations;
+import redis.clients.jedis.CommandArguments;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Protocol;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.args.ExpiryOption;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.params.SetParams;
+
+public class InvocationsManagerTest {
+  private RedisStandIn redis;
+  private RedisPool pool;
+
+  @Before
+  public void setUp() throws Exception {
+    redis = new RedisStandIn();
+    pool = new RedisPool(redis.getUrl(), RedisPool.getConfig());
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    pool.close();
+    redis.close();
+  }
+
+  @Test
+  public void testAddAndGetInvocations() {
+    try (InvocationsManager invocationsManager = new InvocationsManager(pool)) {
+      invocationsManager.addInvocation("first");
+      invocationsManager.addInvocation("second");
+      Invocations invocations = invocationsManager.getInvocations(5);
+      assertEquals(List.of("second", "first"), invocations.getInvocations());
+      assertEquals("second", invocations.getLastInvocationId());
+      assertTrue(invocations.getLastInvocationTime()
+          .matches("\\d{4}-\\d\\d-\\d\\d \\d\\d:\\d\\d:\\d\\d"));
+    }
+    assertTrue(redis.ttl("invocations") > 0);
+    assertTrue(redis.ttl("lastInvocationId") > 0);
+  }
+
+  @Test
+  public void testSingleRoundTrip() {
+    try (InvocationsManager invocationsManager = new InvocationsManager(pool)) {
+      // Borrowed on first use, with a PING to validate it
+      invocationsManager.getConnection();
+      redis.resetCounters();
+      invocationsManager.addAndGetInvocations("first", 5);
+      // The push created the list, a second round trip gives it a TTL
+      assertEquals(2, redis.getRoundTrips());
+      assertTrue(redis.ttl("invocations") > 0);
+
+      redis.resetCounters();
+      Invocations invocations = invocationsManager.addAndGetInvocations("second", 5);
+      assertEquals(1, redis.getRoundTrips());
+      assertTrue(redis.getCommands().stream()
+          .noneMatch(command -> command.get(0).equals("EXPIRE")));
+      assertEquals(List.of("second", "first"), invocations.getInvocations());
+      assertEquals("second", invocations.getLastInvocationId());
+
+      redis.resetCounters();
+      invocationsManager.getInvocations(5);
+      assertEquals(1, redis.getRoundTrips());
+    }
+  }
+
+  @Test
+  public void testSameStateAsSequentialCommands() throws Exception {
+    // The commands the manager used to send one at a time, against a second stand-in
+    try (RedisStandIn sequential = new RedisStandIn();
+        Jedis jedis = new Jedis(URI.create(sequential.getUrl()));
+        InvocationsManager invocationsManager = new InvocationsManager(pool)) {
+      for (String id : List.of("first", "second", "third")) {
+        jedis.set("lastInvocationId", id, new SetParams().ex(300));
+        jedis.set("lastInvocationTime", "2022-11-24 00:00:00", new SetParams().ex(300));
+        jedis.lpush("invocations", id);
+        if (jedis.ttl("invocations") < 0) {
+          jedis.expire("invocations", 300);
+        }
+        Invocations invocations = invocationsManager.addAndGetInvocations(id, 2);
+        assertEquals(jedis.lrange("invocations", 0, 1), invocations.getInvocations());
+        assertEquals(jedis.get("lastInvocationId"), invocations.getLastInvocationId());
+      }
+      for (String key : List.of("invocations", "lastInvocationId", "lastInvocationTime")) {
+        assertEquals(sequential.ttl(key), redis.ttl(key));
+      }
+      assertEquals(sequential.list("invocations"), redis.list("invocations"));
+      assertEquals(sequential.string("lastInvocationId"), redis.string("lastInvocationId"));
+    }
+  }
+
+  @Test
+  public void testListTtlIsNotExtended() throws Exception {
+    try (InvocationsManager invocationsManager = new InvocationsManager(pool);
+        Jedis jedis = new Jedis(URI.create(redis.getUrl()))) {
+      invocationsManager.addInvocation("first");
+      jedis.expire("invocations", 10);
+      invocationsManager.addInvocation("second");
+      assertTrue(redis.ttl("invocations") <= 10);
+    }
+  }
+
+  @Test
+  public void testWithoutExpireOptions() throws Exception {
+    // The stand-in rejects EXPIRE NX as Redis 6.x does
+    try (Jedis jedis = new Jedis(URI.create(redis.getUrl()))) {
+      jedis.lpush("other", "first");
+      assertThrows(JedisDataException.class, () -> jedis.expire("other", 10, ExpiryOption.NX));
+    }
+    try (InvocationsManager invocationsManager = new InvocationsManager(pool)) {
+      invocationsManager.addInvocation("first");
+      assertEquals(List.of("first"), invocationsManager.getInvocations(5).getInvocations());
+    }
+    assertTrue(redis.ttl("invocations") > 0);
+  }
+
+  @Test
+  public void testCappedList() {
+    try (InvocationsManager invocationsManager = new InvocationsManager(pool, null, 3)) {
+      invocationsManager.getConnection();
+      for (int i = 0; i < 5; i++) {
+        redis.resetCounters();
+        Invocations invocations = invocationsManager.addAndGetInvocations("invocation-" + i, 5);
+        // Only the push creating the list needs a second round trip, for its TTL
+        assertEquals(i == 0 ? 2 : 1, redis.getRoundTrips());
+        assertEquals(Math.min(i + 1, 3), invocations.getInvocations().size());
+      }
+    }
+    assertEquals(List.of("invocation-4", "invocation-3", "invocation-2"),
+        redis.list("invocations"));
+    assertTrue(redis.ttl("invocations") > 0);
+
+    // The push and the trim are sent in one MULTI/EXEC transaction
+    List<String> names = new ArrayList<>();
+    redis.getCommands().forEach(command -> names.add(command.get(0)));
+    assertEquals(List.of("MULTI", "SET", "SET", "LPUSH", "LTRIM", "TTL", "EXEC", "LRANGE", "GET",
+        "GET"), names);
+  }
+
+  @Test
+  public void testTransactionWithoutExpireOptions() throws Exception {
+    // Redis 6.x rejects EXPIRE NX when it is queued, which aborts the whole transaction
+    try (Jedis jedis = new Jedis(URI.create(redis.getUrl()))) {
+      Pipeline pipeline = jedis.pipelined();
+      pipeline.sendCommand(new CommandArguments(Protocol.Command.MULTI));
+      pipeline.lpush("other", "first");
+      pipeline.expire("other", 10, ExpiryOption.NX);
+      Response<Object> exec = pipeline.sendCommand(new CommandArguments(Protocol.Command.EXEC));
+      pipeline.sync();
+      JedisDataException error = assertThrows(JedisDataException.class, exec::get);
+      assertTrue(error.getMessage().startsWith("EXECABORT"));
+      assertEquals(List.of(), redis.list("other"));
+    }
+    // The transaction adding an invocation only queues commands every version accepts
+    try (InvocationsManager invocationsManager = new InvocationsManager(pool, null, 3)) {
+      for (int i = 0; i < 5; i++) {
+        invocationsManager.addAndGetInvocations("invocation-" + i, 5);
+      }
+    }
+    assertEquals(List.of("invocation-4", "invocation-3", "invocation-2"),
+        redis.list("invocations"));
+    assertTrue(redis.ttl("invocations") > 0);
+  }
+
+  @Test
+  public void testNamespacesAreApart() {
+    try (InvocationsManager first = new InvocationsManager(pool, "org:00D1", 0);
+        InvocationsManager second = new InvocationsManager(pool, "org:00D2", 0)) {
+      first.addInvocation("first");
+      second.addInvocation("second");
+      assertEquals(List.of("first"), first.getInvocations(5).getInvocations());
+      assertEquals("second", second.getInvocations(5).getLastInvocationId());
+    }
+    assertEquals(List.of("first"), redis.list("org:00D1:invocations"));
+    assertEquals("second", redis.string("org:00D2:lastInvocationId"));
+    assertEquals(List.of(), redis.list("invocations"));
+  }
+
+  @Test
+  public void testNearCacheSkipsRoundTrip() {
+    NearCache nearCache = new NearCache(Duration.ofMinutes(1));
+    try (InvocationsManager invocationsManager = new InvocationsManager(pool, null, 0, nearCache)) {
+      // The function's own add reads the invocations back, which fills the cache
+      invocationsManager.addAndGetInvocations("first", 5);
+    }
+    redis.resetCounters();
+    try (InvocationsManager invocationsManager = new InvocationsManager(pool, null, 0, nearCache)) {
+      Invocations invocations = invocationsManager.getInvocations(5);
+      assertEquals(List.of("first"), invocations.getInvocations());
+      assertEquals("first", invocations.getLastInvocationId());
+    }
+    // Not even a connection was borrowed
+    assertEquals(0, redis.getRoundTrips());
+    assertEquals(1, pool.stats().getBorrowed());
+  }
+
+  @Test
+  public void testNearCacheStaleness() {
+    AtomicLong now = new AtomicLong();
+    NearCache nearCache = new NearCache(Duration.ofSeconds(1), now::get);
+    try (InvocationsManager cached = new InvocationsManager(pool, null, 0, nearCache);
+        InvocationsManager other = new InvocationsManager(pool)) {
+      other.addInvocation("first");
+      assertEquals("first", cached.getInvocations(5).getLastInvocationId());
+
+      // A write of another process is only seen once the TTL has passed
+      other.addInvocation("second");
+      Invocations stale = cached.getInvocations(5);
+      assertEquals("first", stale.getLastInvocationId());
+      assertEquals(List.of("first"), stale.getInvocations());
+      now.addAndGet(Duration.ofSeconds(1).toNanos());
+      assertEquals(List.of("second", "first"), cached.getInvocations(5).getInvocations());
+
+      // A write of this process is seen at once
+      cached.addInvocation("third");
+      assertEquals("third", cached.getInvocations(5).getLastInvocationId());
+      assertEquals("fourth", cached.addAndGetInvocations("fourth", 5).getLastInvocationId());
+      assertEquals(List.of("fourth", "third", "second", "first"),
+          cached.getInvocations(5).getInvocations());
+    }
+  }
+
+  @Test
+  public void testInvocationsReuseConnection() {
+    for (int i = 0; i < 10; i++) {
+      try (InvocationsManager invocationsManager = new InvocationsManager(pool)) {
+        invocationsManager.addInvocation("invocation-" + i);
+      }
+    }
+    RedisPool.Stats stats = pool.stats();
+    assertEquals(1, redis.getConnections());
+    assertEquals(1, stats.getCreated());
+    assertEquals(10, stats.getBorrowed());
+    assertEquals(0, stats.getActive());
+    assertEquals(1, stats.getIdle());
+  }
+
+  @Test
+  public void testBrokenConnectionIsReplaced() throws Exception {
+    GenericObjectPoolConfig<Jedis> config = RedisPool.getConfig();
+    config.setMaxTotal(1);
+    config.setMaxWait(Duration.ofSeconds(1));
+    try (RedisPool single = new RedisPool(redis.getUrl(), config)) {
+      try (InvocationsManager invocationsManager = new InvocationsManager(single)) {
+        invocationsManager.addInvocation("first");
+        // The server closes the connection while it is idle in the pool
+        invocationsManager.getConnection().quit();
+      }
+      // Validation on borrow replaces it instead of failing the invocation
+      try (InvocationsManager invocationsManager = new InvocationsManager(single)) {
+        assertEquals(List.of("first"), invocationsManager.getInvocations(5).getInvocations());
+      }
+      assertEquals(2, single.stats().getCreated());
+    }
+  }
+}
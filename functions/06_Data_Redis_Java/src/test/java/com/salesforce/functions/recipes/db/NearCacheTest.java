@@ -0,0 +1,75 @@
+package com.salesforce.functions.recipes.db;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Test;
+import com.salesforce.functions.recipes.Invocations;
+
+public class NearCacheTest {
+  private final AtomicLong now = new AtomicLong();
+  private final NearCache nearCache = new NearCache(Duration.ofMillis(500), now::get);
+
+  @Test
+  public void testReadsAreKeptForTheTtl() {
+    nearCache.put("invocations", 5, invocations("first"), nearCache.stamp());
+    now.addAndGet(Duration.ofMillis(499).toNanos());
+    assertEquals("first", nearCache.get("invocations", 5).getLastInvocationId());
+    assertEquals(List.of("first"), nearCache.get("invocations", 5).getInvocations());
+
+    // Past the TTL, the read is at most that stale and goes to Redis again
+    now.addAndGet(Duration.ofMillis(1).toNanos());
+    assertNull(nearCache.get("invocations", 5));
+  }
+
+  @Test
+  public void testLimits() {
+    nearCache.put("invocations", 2, invocations("third", "second"), nearCache.stamp());
+    assertEquals(List.of("third"), nearCache.get("invocations", 1).getInvocations());
+    // The list may hold more invocations than were read
+    assertNull(nearCache.get("invocations", 5));
+    assertNull(nearCache.get("org:00D1:invocations", 2));
+
+    // A read that got the whole list answers any limit
+    nearCache.put("invocations", 5, invocations("third", "second"), nearCache.stamp());
+    assertEquals(List.of("third", "second"), nearCache.get("invocations", 10).getInvocations());
+  }
+
+  @Test
+  public void testInvalidate() {
+    nearCache.put("invocations", 5, invocations("first"), nearCache.stamp());
+    long stamp = nearCache.invalidate("invocations");
+    assertNull(nearCache.get("invocations", 5));
+    nearCache.put("invocations", 5, invocations("second", "first"), stamp);
+    assertEquals("second", nearCache.get("invocations", 5).getLastInvocationId());
+  }
+
+  @Test
+  public void testReadBeforeWriteIsNotKept() {
+    // A read sent before a write of the process, whose reply arrives after it
+    long stamp = nearCache.stamp();
+    long written = nearCache.invalidate("invocations");
+    nearCache.put("invocations", 5, invocations("second", "first"), written);
+    nearCache.put("invocations", 5, invocations("first"), stamp);
+    assertEquals("second", nearCache.get("invocations", 5).getLastInvocationId());
+  }
+
+  @Test
+  public void testDisabled() {
+    NearCache disabled = new NearCache(Duration.ZERO, now::get);
+    disabled.put("invocations", 5, invocations("first"), disabled.stamp());
+    assertFalse(disabled.isEnabled());
+    assertNull(disabled.get("invocations", 5));
+  }
+
+  private static Invocations invocations(String... ids) {
+    Invocations invocations = new Invocations();
+    invocations.setInvocations(List.of(ids));
+    invocations.setLastInvocationId(ids[0]);
+    invocations.setLastInvocationTime("2022-11-24 00:00:00");
+    return invocations;
+  }
+}
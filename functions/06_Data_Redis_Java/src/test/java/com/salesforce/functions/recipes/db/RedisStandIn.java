@@ -0,0 +1,433 @@
+package com.salesforce.functions.recipes.db;
+
+import javax.net.ssl.KeyManager;
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLServerSocket;
+import javax.net.ssl.X509ExtendedKeyManager;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.Principal;
+import java.security.PrivateKey;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An in-memory stand-in for a Redis server, speaking RESP2 over TCP or TLS on a local port. It
+ * implements the few commands the Function uses, with expiry, as the oldest Redis version the
+ * Function supports (6.x) does. It counts connections and round trips: a round trip ends every
+ * time the stand-in has answered all the commands it received.
+ */
+class RedisStandIn implements AutoCloseable {
+  private final ServerSocket server;
+  private final Map<String, Object> values = new HashMap<>();
+  private final Map<String, Long> expiries = new HashMap<>();
+  private final AtomicInteger connections = new AtomicInteger();
+  private final AtomicInteger roundTrips = new AtomicInteger();
+  private final List<List<String>> commands = new ArrayList<>();
+
+  private final AtomicInteger fullHandshakes = new AtomicInteger();
+
+  RedisStandIn() throws IOException {
+    server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+    start();
+  }
+
+  /**
+   * A stand-in accepting TLS connections only.
+   *
+   * @param keyStore Key store holding the server's private key and certificate
+   * @param password Password of the key store
+   */
+  RedisStandIn(KeyStore keyStore, char[] password) throws IOException, GeneralSecurityException {
+    KeyManagerFactory factory = KeyManagerFactory.getInstance("SunX509");
+    factory.init(keyStore, password);
+    X509ExtendedKeyManager keyManager = (X509ExtendedKeyManager) factory.getKeyManagers()[0];
+    SSLContext sslContext = SSLContext.getInstance("TLS");
+    sslContext.init(new KeyManager[] {new CountingKeyManager(keyManager)}, null, null);
+    server = sslContext.getServerSocketFactory()
+        .createServerSocket(0, 50, InetAddress.getLoopbackAddress());
+    start();
+  }
+
+  private void start() {
+    Thread acceptor = new Thread(this::accept, "redis-stand-in");
+    acceptor.setDaemon(true);
+    acceptor.start();
+  }
+
+  String getUrl() {
+    String scheme = server instanceof SSLServerSocket ? "rediss" : "redis";
+    return scheme + "://localhost:" + server.getLocalPort();
+  }
+
+  /**
+   * Number of TLS handshakes the server's key was needed for, resumed sessions do not count.
+   */
+  int getFullHandshakes() {
+    return fullHandshakes.get();
+  }
+
+  int getConnections() {
+    return connections.get();
+  }
+
+  int getRoundTrips() {
+    return roundTrips.get();
+  }
+
+  synchronized List<List<String>> getCommands() {
+    return new ArrayList<>(commands);
+  }
+
+  synchronized void resetCounters() {
+    roundTrips.set(0);
+    commands.clear();
+  }
+
+  /**
+   * Seconds to live of a key, as the TTL command answers.
+   */
+  synchronized long ttl(String key) {
+    expire();
+    if (!values.containsKey(key)) {
+      return -2;
+    }
+    Long expiry = expiries.get(key);
+    return expiry == null ? -1 : Math.max(0, (expiry - System.currentTimeMillis() + 999) / 1000);
+  }
+
+  @SuppressWarnings("unchecked")
+  synchronized List<String> list(String key) {
+    expire();
+    Object value = values.get(key);
+    return value == null ? List.of() : new ArrayList<>((LinkedList<String>) value);
+  }
+
+  synchronized String string(String key) {
+    expire();
+    return (String) values.get(key);
+  }
+
+  private void accept() {
+    while (!server.isClosed()) {
+      try {
+        Socket socket = server.accept();
+        connections.incrementAndGet();
+        Thread client = new Thread(() -> serve(socket), "redis-stand-in-client");
+        client.setDaemon(true);
+        client.start();
+      } catch (IOException e) {
+        return;
+      }
+    }
+  }
+
+  private void serve(Socket socket) {
+    try (socket;
+        InputStream in = new BufferedInputStream(socket.getInputStream());
+        OutputStream out = new BufferedOutputStream(socket.getOutputStream())) {
+      List<List<String>> queued = null;
+      boolean aborted = false;
+      while (true) {
+        List<String> command = read(in);
+        if (command == null) {
+          return;
+        }
+        String name = command.get(0).toUpperCase();
+        synchronized (this) {
+          commands.add(command);
+        }
+        if (name.equals("MULTI")) {
+          queued = new ArrayList<>();
+          aborted = false;
+          out.write("+OK\r\n".getBytes(StandardCharsets.UTF_8));
+        } else if (name.equals("EXEC") && aborted) {
+          // A command that could not be queued discards the whole transaction
+          out.write("-EXECABORT Transaction discarded because of previous errors.\r\n"
+              .getBytes(StandardCharsets.UTF_8));
+          queued = null;
+        } else if (name.equals("EXEC") && queued != null) {
+          ByteArrayOutputStream replies = new ByteArrayOutputStream();
+          synchronized (this) {
+            // Queued commands run without any other client's in between
+            for (List<String> queuedCommand : queued) {
+              replies.write(execute(queuedCommand));
+            }
+          }
+          out.write(("*" + queued.size() + "\r\n").getBytes(StandardCharsets.UTF_8));
+          out.write(replies.toByteArray());
+          queued = null;
+        } else if (queued != null) {
+          byte[] error = check(command);
+          if (error == null) {
+            queued.add(command);
+            out.write("+QUEUED\r\n".getBytes(StandardCharsets.UTF_8));
+          } else {
+            aborted = true;
+            out.write(error);
+          }
+        } else {
+          byte[] reply;
+          synchronized (this) {
+            reply = execute(command);
+          }
+          out.write(reply);
+        }
+        if (in.available() == 0) {
+          // Counted before the client can read the reply
+          roundTrips.incrementAndGet();
+          out.flush();
+        }
+        if (name.equals("QUIT")) {
+          return;
+        }
+      }
+    } catch (IOException e) {
+      // The client disconnected
+    }
+  }
+
+  /**
+   * The error of a command Redis rejects before running it, null for a valid one.
+   */
+  private static byte[] check(List<String> command) {
+    switch (command.get(0).toUpperCase()) {
+      case "PING": case "QUIT": case "SET": case "GET": case "DEL": case "LPUSH": case "LRANGE":
+      case "LTRIM": case "TTL":
+        return null;
+      case "EXPIRE":
+        // As Redis before 7.0, which has no NX, XX, GT or LT options
+        return command.size() == 3
+            ? null
+            : error("wrong number of arguments for 'expire' command");
+      default:
+        return error("unknown command '" + command.get(0) + "'");
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private byte[] execute(List<String> command) {
+    expire();
+    byte[] error = check(command);
+    if (error != null) {
+      return error;
+    }
+    String name = command.get(0).toUpperCase();
+    switch (name) {
+      case "PING":
+        return simple("PONG");
+      case "QUIT":
+        return simple("OK");
+      case "SET": {
+        values.put(command.get(1), command.get(2));
+        expiries.remove(command.get(1));
+        for (int i = 3; i < command.size() - 1; i++) {
+          if (command.get(i).equalsIgnoreCase("EX")) {
+            expiries.put(command.get(1),
+                System.currentTimeMillis() + Long.parseLong(command.get(i + 1)) * 1000);
+          }
+        }
+        return simple("OK");
+      }
+      case "GET":
+        return bulk((String) values.get(command.get(1)));
+      case "DEL": {
+        int deleted = 0;
+        for (String key : command.subList(1, command.size())) {
+          deleted += values.remove(key) != null ? 1 : 0;
+          expiries.remove(key);
+        }
+        return integer(deleted);
+      }
+      case "LPUSH": {
+        LinkedList<String> list =
+            (LinkedList<String>) values.computeIfAbsent(command.get(1), key -> new LinkedList<>());
+        for (String value : command.subList(2, command.size())) {
+          list.addFirst(value);
+        }
+        return integer(list.size());
+      }
+      case "LRANGE": {
+        LinkedList<String> list = (LinkedList<String>) values.get(command.get(1));
+        List<String> range = list == null
+            ? List.of()
+            : range(list, Integer.parseInt(command.get(2)), Integer.parseInt(command.get(3)));
+        ByteArrayOutputStream reply = new ByteArrayOutputStream();
+        reply.writeBytes(("*" + range.size() + "\r\n").getBytes(StandardCharsets.UTF_8));
+        for (String value : range) {
+          reply.writeBytes(bulk(value));
+        }
+        return reply.toByteArray();
+      }
+      case "LTRIM": {
+        LinkedList<String> list = (LinkedList<String>) values.get(command.get(1));
+        if (list != null) {
+          List<String> kept =
+              range(list, Integer.parseInt(command.get(2)), Integer.parseInt(command.get(3)));
+          if (kept.isEmpty()) {
+            values.remove(command.get(1));
+            expiries.remove(command.get(1));
+          } else {
+            values.put(command.get(1), new LinkedList<>(kept));
+          }
+        }
+        return simple("OK");
+      }
+      case "TTL": {
+        String key = command.get(1);
+        if (!values.containsKey(key)) {
+          return integer(-2);
+        }
+        Long expiry = expiries.get(key);
+        return integer(expiry == null ? -1 : (expiry - System.currentTimeMillis() + 999) / 1000);
+      }
+      case "EXPIRE": {
+        String key = command.get(1);
+        if (!values.containsKey(key)) {
+          return integer(0);
+        }
+        expiries.put(key, System.currentTimeMillis() + Long.parseLong(command.get(2)) * 1000);
+        return integer(1);
+      }
+      default:
+        throw new IllegalStateException("Unchecked command " + name);
+    }
+  }
+
+  private static List<String> range(List<String> list, int start, int stop) {
+    int size = list.size();
+    start = start < 0 ? Math.max(size + start, 0) : start;
+    stop = stop < 0 ? size + stop : Math.min(stop, size - 1);
+    return start > stop ? List.of() : new ArrayList<>(list.subList(start, stop + 1));
+  }
+
+  private void expire() {
+    long now = System.currentTimeMillis();
+    expiries.entrySet().removeIf(expiry -> {
+      if (expiry.getValue() <= now) {
+        values.remove(expiry.getKey());
+        return true;
+      }
+      return false;
+    });
+  }
+
+  private static List<String> read(InputStream in) throws IOException {
+    String header = line(in);
+    if (header == null) {
+      return null;
+    }
+    if (header.charAt(0) != '*') {
+      throw new IOException("Expected an array, got " + header);
+    }
+    int count = Integer.parseInt(header.substring(1));
+    List<String> command = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      int length = Integer.parseInt(line(in).substring(1));
+      byte[] value = in.readNBytes(length);
+      in.readNBytes(2);
+      command.add(new String(value, StandardCharsets.UTF_8));
+    }
+    return command;
+  }
+
+  private static String line(InputStream in) throws IOException {
+    ByteArrayOutputStream line = new ByteArrayOutputStream();
+    int b;
+    while ((b = in.read()) != '\n') {
+      if (b == -1) {
+        return null;
+      }
+      if (b != '\r') {
+        line.write(b);
+      }
+    }
+    return line.toString(StandardCharsets.UTF_8);
+  }
+
+  private static byte[] simple(String value) {
+    return ("+" + value + "\r\n").getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static byte[] error(String message) {
+    return ("-ERR " + message + "\r\n").getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static byte[] integer(long value) {
+    return (":" + value + "\r\n").getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static byte[] bulk(String value) {
+    if (value == null) {
+      return "$-1\r\n".getBytes(StandardCharsets.UTF_8);
+    }
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    return ("$" + bytes.length + "\r\n" + value + "\r\n").getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Override
+  public void close() throws IOException {
+    server.close();
+  }
+
+  /**
+   * Counts the handshakes choosing a server certificate, a resumed session needs none.
+   */
+  private class CountingKeyManager extends X509ExtendedKeyManager {
+    private final X509ExtendedKeyManager keyManager;
+
+    CountingKeyManager(X509ExtendedKeyManager keyManager) {
+      this.keyManager = keyManager;
+    }
+
+    @Override
+    public String chooseServerAlias(String keyType, Principal[] issuers, Socket socket) {
+      String alias = keyManager.chooseServerAlias(keyType, issuers, socket);
+      if (alias != null) {
+        fullHandshakes.incrementAndGet();
+      }
+      return alias;
+    }
+
+    @Override
+    public String[] getServerAliases(String keyType, Principal[] issuers) {
+      return keyManager.getServerAliases(keyType, issuers);
+    }
+
+    @Override
+    public String[] getClientAliases(String keyType, Principal[] issuers) {
+      return keyManager.getClientAliases(keyType, issuers);
+    }
+
+    @Override
+    public String chooseClientAlias(String[] keyType, Principal[] issuers, Socket socket) {
+      return keyManager.chooseClientAlias(keyType, issuers, socket);
+    }
+
+    @Override
+    public X509Certificate[] getCertificateChain(String alias) {
+      return keyManager.getCertificateChain(alias);
+    }
+
+    @Override
+    public PrivateKey getPrivateKey(String alias) {
+      return keyManager.getPrivateKey(alias);
+    }
+  }
+}
@@ -0,0 +1,117 @@
+package com.salesforce.functions.recipes.db;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.security.KeyStore;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import redis.clients.jedis.exceptions.JedisException;
+
+public class RedisTlsTest {
+  private static final String PASSWORD = "changeit";
+
+  @ClassRule
+  public static TemporaryFolder folder = new TemporaryFolder();
+
+  // Key stores of the stand-in and of another server, their certificates are trusted when they
+  // are used as trust stores
+  private static KeyStore serverKeyStore;
+  private static KeyStore otherKeyStore;
+  private RedisStandIn redis;
+
+  @BeforeClass
+  public static void setUpKeyStores() throws Exception {
+    serverKeyStore = keyStore("server");
+    otherKeyStore = keyStore("other");
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    redis = new RedisStandIn(serverKeyStore, PASSWORD.toCharArray());
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    redis.close();
+  }
+
+  @Test
+  public void testTrustStore() throws Exception {
+    RedisTls tls = new RedisTls(serverKeyStore, Duration.ofMinutes(5));
+    try (RedisPool pool = new RedisPool(redis.getUrl(), RedisPool.getConfig(), tls);
+        InvocationsManager invocationsManager = new InvocationsManager(pool)) {
+      invocationsManager.addInvocation("first");
+      assertEquals(List.of("first"), invocationsManager.getInvocations(5).getInvocations());
+    }
+  }
+
+  @Test
+  public void testUntrustedCertificate() throws Exception {
+    RedisTls tls = new RedisTls(otherKeyStore, Duration.ofMinutes(5));
+    try (RedisPool pool = new RedisPool(redis.getUrl(), RedisPool.getConfig(), tls)) {
+      assertThrows(JedisException.class, pool::getResource);
+    }
+  }
+
+  @Test
+  public void testHostNameVerified() throws Exception {
+    // The certificate is only valid for localhost
+    String url = redis.getUrl().replace("localhost", "127.0.0.1");
+    RedisTls verified = new RedisTls(serverKeyStore, Duration.ofMinutes(5));
+    try (RedisPool pool = new RedisPool(url, RedisPool.getConfig(), verified)) {
+      assertThrows(JedisException.class, pool::getResource);
+    }
+    // Without a trust store, any certificate and host name are accepted
+    RedisTls trustAll = new RedisTls(null, Duration.ofMinutes(5));
+    try (RedisPool pool = new RedisPool(url, RedisPool.getConfig(), trustAll);
+        InvocationsManager invocationsManager = new InvocationsManager(pool)) {
+      invocationsManager.addInvocation("first");
+    }
+  }
+
+  @Test
+  public void testReconnectResumesSession() throws Exception {
+    RedisTls tls = new RedisTls(serverKeyStore, Duration.ofMinutes(5));
+    for (int i = 0; i < 3; i++) {
+      // A new pool opens a new connection, as after the previous one was evicted
+      try (RedisPool pool = new RedisPool(redis.getUrl(), RedisPool.getConfig(), tls);
+          InvocationsManager invocationsManager = new InvocationsManager(pool)) {
+        invocationsManager.addInvocation("invocation-" + i);
+      }
+    }
+    assertEquals(3, redis.getConnections());
+    assertEquals(1, redis.getFullHandshakes());
+  }
+
+  /**
+   * Generate a key store with a self-signed certificate for localhost.
+   */
+  private static KeyStore keyStore(String name) throws Exception {
+    Path path = folder.getRoot().toPath().resolve(name + ".p12");
+    keytool("-genkeypair", "-alias", "redis", "-keyalg", "EC", "-groupname", "secp256r1",
+        "-dname", "CN=localhost", "-ext", "SAN=dns:localhost", "-validity", "2",
+        "-keystore", path.toString(), "-storepass", PASSWORD, "-storetype", "PKCS12");
+    return RedisTls.loadTrustStore(path, "PKCS12", PASSWORD);
+  }
+
+  private static void keytool(String... args) throws IOException, InterruptedException {
+    List<String> command = new ArrayList<>();
+    command.add(Path.of(System.getProperty("java.home"), "bin", "keytool").toString());
+    command.addAll(Arrays.asList(args));
+    Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+    String output = new String(process.getInputStream().readAllBytes());
+    if (process.waitFor() != 0) {
+      throw new IOException("keytool failed: " + output);
+    }
+  }
+}